@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ChunkPlanner}.
+ */
+public class ChunkPlannerTest {
+
+	private static final long FAST = 1_000_000L;
+
+	private static final long SLOW = 3_000_000_000L;
+
+	/**
+	 * Test that fast chunks are grown up to the row and byte limits.
+	 */
+	@Test
+	public void testGrowth() {
+		final ChunkPlanner planner = new ChunkPlanner(100, 350, 10, 1_000_000);
+		assertEquals(100, planner.getChunkSize());
+		planner.chunkDone(100, FAST);
+		assertEquals(200, planner.getChunkSize());
+		planner.chunkDone(200, FAST);
+		assertEquals("limited by the maximum number of rows", 350, planner.getChunkSize());
+
+		final ChunkPlanner bytesLimited = new ChunkPlanner(50, 10_000, 10, 1_000);
+		bytesLimited.chunkDone(50, FAST);
+		assertEquals("limited by the maximum chunk size in bytes", 100, bytesLimited.getChunkSize());
+		bytesLimited.setBytesPerRow(100);
+		assertEquals(10, bytesLimited.getChunkSize());
+		assertEquals(1_000, bytesLimited.getMaxChunkBytes());
+	}
+
+	/**
+	 * Test that slow chunks are shrunk, but not below one row.
+	 */
+	@Test
+	public void testShrink() {
+		final ChunkPlanner planner = new ChunkPlanner(8, 100, 1, 1_000_000);
+		planner.chunkDone(8, SLOW);
+		assertEquals(4, planner.getChunkSize());
+		planner.chunkDone(4, SLOW);
+		planner.chunkDone(2, SLOW);
+		planner.chunkDone(1, SLOW);
+		assertEquals(1, planner.getChunkSize());
+	}
+
+	/**
+	 * Test that growing stops at the best size found if the throughput of larger chunks drops.
+	 */
+	@Test
+	public void testThroughputDrop() {
+		final ChunkPlanner planner = new ChunkPlanner(100, 10_000, 1, 1_000_000);
+		planner.chunkDone(100, FAST);
+		assertEquals(200, planner.getChunkSize());
+		planner.chunkDone(200, 10 * FAST);
+		assertEquals(100, planner.getChunkSize());
+		planner.chunkDone(100, FAST);
+		assertEquals("not grown again", 100, planner.getChunkSize());
+	}
+
+	/**
+	 * Test that the last, smaller chunk of a table does not change the plan.
+	 */
+	@Test
+	public void testRemainder() {
+		final ChunkPlanner planner = new ChunkPlanner(100, 10_000, 1, 1_000_000);
+		planner.chunkDone(7, SLOW);
+		assertEquals(100, planner.getChunkSize());
+	}
+
+	/**
+	 * Test that invalid estimates are clamped.
+	 */
+	@Test
+	public void testClamping() {
+		final ChunkPlanner planner = new ChunkPlanner(0, 0, 0, 0);
+		assertEquals(1, planner.getChunkSize());
+		planner.chunkDone(1, 0);
+		assertEquals(1, planner.getChunkSize());
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Test for {@link PackedColumns}.
+ */
+public class PackedColumnsTest {
+
+	private static final int[] WIDTHS =
+		{PackedColumns.INTEGER_WIDTH, 0, PackedColumns.DOUBLE_WIDTH, PackedColumns.LOGICAL_WIDTH};
+
+	private static void fill(final PackedColumns packed) {
+		packed.putInt(0, 1, 42);
+		packed.putInt(0, 0, Integer.MIN_VALUE);
+		packed.putDouble(2, 0, 1.5);
+		packed.putLong(2, 1, Long.MIN_VALUE);
+		packed.putInt(3, 0, 1);
+		packed.putInt(3, 1, 0);
+	}
+
+	/** Check the layout R decodes with <code>readBin</code>: one little endian region per column. */
+	private static void assertLayout(final byte[] bytes) {
+		assertEquals(2 * (4 + 8 + 4), bytes.length);
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(Integer.MIN_VALUE, buffer.getInt(0));
+		assertEquals(42, buffer.getInt(4));
+		assertEquals(1.5, buffer.getDouble(8), 0);
+		assertEquals(Long.MIN_VALUE, buffer.getLong(16));
+		assertEquals(1, buffer.getInt(24));
+		assertEquals(0, buffer.getInt(28));
+	}
+
+	/**
+	 * Test the layout of columns packed into an array.
+	 */
+	@Test
+	public void testArray() {
+		try (final PackedColumns packed = new PackedColumns(2, WIDTHS)) {
+			assertFalse(packed.isEmpty());
+			assertTrue(packed.isPacked(0));
+			assertFalse(packed.isPacked(1));
+			assertEquals(2, packed.getRows());
+			assertNull(packed.getFile());
+			fill(packed);
+			assertLayout(packed.toREXP().asBytes());
+		}
+	}
+
+	/**
+	 * Test the layout of columns packed into a memory-mapped file and that the file is deleted on close.
+	 */
+	@Test
+	public void testMappedFile() throws IOException {
+		final File directory = FileUtil.createTempDir("knime-r-test");
+		final File file;
+		try (final PackedColumns packed = new PackedColumns(2, WIDTHS, directory)) {
+			file = packed.getFile();
+			assertNotNull(file);
+			assertEquals(directory, file.getParentFile());
+			fill(packed);
+			assertLayout(Files.readAllBytes(file.toPath()));
+		}
+		assertFalse("file has to be deleted on close", file.exists());
+		assertTrue(PackedColumns.getUsableSpace(directory) > 0);
+	}
+
+	/**
+	 * Test that a mapped buffer cannot be sent as raw vector.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testMappedToREXP() throws IOException {
+		try (final PackedColumns packed = new PackedColumns(2, WIDTHS, FileUtil.createTempDir("knime-r-test"))) {
+			packed.toREXP();
+		}
+	}
+
+	/**
+	 * Test that no file is created if no column is packed.
+	 */
+	@Test
+	public void testEmpty() throws IOException {
+		try (final PackedColumns packed = new PackedColumns(10, new int[2], FileUtil.createTempDir("knime-r-test"))) {
+			assertTrue(packed.isEmpty());
+			assertNull(packed.getFile());
+		}
+		try (final PackedColumns packed = new PackedColumns(10, new int[0])) {
+			assertTrue(packed.isEmpty());
+			assertArrayEquals(new byte[0], packed.toREXP().asBytes());
+		}
+	}
+
+	/**
+	 * Test that batches which do not fit into an array are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooLarge() {
+		new PackedColumns(Integer.MAX_VALUE / 4, new int[]{PackedColumns.DOUBLE_WIDTH}).close();
+	}
+}
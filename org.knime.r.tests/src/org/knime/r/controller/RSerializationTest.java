@@ -0,0 +1,268 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.r.controller.RSerialization.RVector;
+
+/**
+ * Test for {@link RSerialization}, round-trips objects from its writer through its reader.
+ */
+public class RSerializationTest {
+
+	/** NA of R's double vectors, a NaN with payload 1954 */
+	private static final double NA_REAL = Double.longBitsToDouble(0x7FF00000000007A2L);
+
+	private static RVector roundTrip(final WriteAction action) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final RSerialization.Writer writer = new RSerialization.Writer(bytes)) {
+			action.write(writer);
+		}
+		return RSerialization.Reader.read(bytes.toByteArray());
+	}
+
+	private interface WriteAction {
+		void write(RSerialization.Writer writer) throws IOException;
+	}
+
+	/**
+	 * Test logical, integer, double and character vectors including NA.
+	 */
+	@Test
+	public void testAtomicVectors() throws IOException {
+		RVector vector = roundTrip(w -> {
+			w.beginVector(RSerialization.LGLSXP, 3, false, false);
+			w.writeInt(1);
+			w.writeInt(0);
+			w.writeInt(RSerialization.NA_INTEGER);
+		});
+		assertEquals(RSerialization.LGLSXP, vector.m_type);
+		assertArrayEquals(new int[]{1, 0, RSerialization.NA_INTEGER}, (int[])vector.m_values);
+
+		vector = roundTrip(w -> {
+			w.beginVector(RSerialization.INTSXP, 3, false, false);
+			w.writeInt(Integer.MAX_VALUE);
+			w.writeInt(-1);
+			w.writeInt(RSerialization.NA_INTEGER);
+		});
+		assertEquals(RSerialization.INTSXP, vector.m_type);
+		assertArrayEquals(new int[]{Integer.MAX_VALUE, -1, RSerialization.NA_INTEGER}, (int[])vector.m_values);
+
+		vector = roundTrip(w -> {
+			w.beginVector(RSerialization.REALSXP, 4, false, false);
+			w.writeDouble(1.5);
+			w.writeDouble(Double.NaN);
+			w.writeDouble(NA_REAL);
+			w.writeLong(Long.MIN_VALUE);
+		});
+		assertEquals(RSerialization.REALSXP, vector.m_type);
+		final double[] doubles = (double[])vector.m_values;
+		assertEquals(1.5, doubles[0], 0);
+		assertEquals("NaN has to stay distinguishable from NA", Double.doubleToRawLongBits(Double.NaN),
+			Double.doubleToRawLongBits(doubles[1]));
+		assertEquals("NA payload has to be kept", Double.doubleToRawLongBits(NA_REAL),
+			Double.doubleToRawLongBits(doubles[2]));
+		assertEquals("integer64 bits have to be kept", Long.MIN_VALUE, Double.doubleToRawLongBits(doubles[3]));
+
+		vector = roundTrip(w -> w.writeStrings("a", null, "", "ä€😀"));
+		assertEquals(RSerialization.STRSXP, vector.m_type);
+		assertArrayEquals(new String[]{"a", null, "", "ä€😀"}, (String[])vector.m_values);
+		assertEquals(4, vector.length());
+
+		vector = roundTrip(w -> w.beginVector(RSerialization.INTSXP, 0, false, false));
+		assertEquals(0, vector.length());
+	}
+
+	/**
+	 * Test a data.frame with factor and Date columns and compact row names.
+	 */
+	@Test
+	public void testDataFrame() throws IOException {
+		final RVector frame = roundTrip(w -> {
+			w.beginVector(RSerialization.VECSXP, 2, true, true);
+			w.beginVector(RSerialization.INTSXP, 3, true, true);
+			w.writeInt(1);
+			w.writeInt(RSerialization.NA_INTEGER);
+			w.writeInt(2);
+			w.beginAttribute("levels");
+			w.writeStrings("x", "y");
+			w.beginAttribute("class");
+			w.writeStrings("factor");
+			w.endAttributes();
+			w.beginVector(RSerialization.REALSXP, 3, true, true);
+			w.writeDouble(0);
+			w.writeDouble(1);
+			w.writeDouble(NA_REAL);
+			w.beginAttribute("class");
+			w.writeStrings("Date");
+			w.endAttributes();
+			w.beginAttribute("names");
+			w.writeStrings("f", "d");
+			w.beginAttribute("row.names");
+			w.beginVector(RSerialization.INTSXP, 2, false, false);
+			w.writeInt(RSerialization.NA_INTEGER);
+			w.writeInt(-3);
+			w.beginAttribute("class");
+			w.writeStrings("data.frame");
+			w.endAttributes();
+		});
+		assertEquals(RSerialization.VECSXP, frame.m_type);
+		assertTrue(frame.inherits("data.frame"));
+		assertArrayEquals(new String[]{"f", "d"}, (String[])frame.getAttribute("names").m_values);
+		assertArrayEquals(new int[]{RSerialization.NA_INTEGER, -3},
+			(int[])frame.getAttribute("row.names").m_values);
+		assertNull(frame.getAttribute("levels"));
+
+		@SuppressWarnings("unchecked")
+		final List<RVector> columns = (List<RVector>)frame.m_values;
+		assertEquals(2, columns.size());
+		final RVector factor = columns.get(0);
+		assertTrue(factor.inherits("factor"));
+		assertArrayEquals(new int[]{1, RSerialization.NA_INTEGER, 2}, (int[])factor.m_values);
+		assertArrayEquals(new String[]{"x", "y"}, (String[])factor.getAttribute("levels").m_values);
+		final RVector date = columns.get(1);
+		assertTrue(date.inherits("Date"));
+		assertEquals(3, date.length());
+	}
+
+	/**
+	 * Test that fragments are appended to a complete stream, like the columns of a table.
+	 */
+	@Test
+	public void testFragments() throws IOException {
+		final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+		try (final RSerialization.Writer writer = RSerialization.Writer.fragment(fragment)) {
+			writer.beginVector(RSerialization.INTSXP, 2, true, true);
+			writer.writeInt(7);
+			writer.writeInt(8);
+			writer.beginAttribute("class");
+			writer.writeStrings("integer64");
+			writer.endAttributes();
+		}
+		final RVector list = roundTrip(w -> {
+			w.beginVector(RSerialization.VECSXP, 2, false, false);
+			w.append(fragment);
+			w.append(fragment);
+		});
+		@SuppressWarnings("unchecked")
+		final List<RVector> elements = (List<RVector>)list.m_values;
+		assertEquals(2, elements.size());
+		for (final RVector element : elements) {
+			assertArrayEquals(new int[]{7, 8}, (int[])element.m_values);
+			assertTrue(element.inherits("integer64"));
+		}
+	}
+
+	/**
+	 * Test a stream as written by R, where repeated attribute names are references to the first occurrence of the
+	 * symbol and strings may be Latin-1 encoded.
+	 */
+	@Test
+	public void testSymbolReferencesAndLatin1() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeBytes("X\n");
+			out.writeInt(2);
+			out.writeInt(0x030500);
+			out.writeInt(0x020300);
+			// list(structure(1L, class="a"), structure(2L, class="b"))
+			out.writeInt(RSerialization.VECSXP);
+			out.writeInt(2);
+			for (int i = 1; i <= 2; i++) {
+				out.writeInt(RSerialization.INTSXP | (1 << 8) | (1 << 9));
+				out.writeInt(1);
+				out.writeInt(i);
+				out.writeInt(RSerialization.LISTSXP | (1 << 10));
+				if (i == 1) {
+					out.writeInt(RSerialization.SYMSXP);
+					writeCharsxp(out, "class".getBytes(StandardCharsets.US_ASCII), 0);
+				} else {
+					// reference to the first symbol, index packed into the flags
+					out.writeInt((1 << 8) | 255);
+				}
+				out.writeInt(RSerialization.STRSXP);
+				out.writeInt(1);
+				// Latin-1 flag in the general purpose bits
+				writeCharsxp(out, (i == 1 ? "ä" : "ü").getBytes(StandardCharsets.ISO_8859_1), 1 << 2);
+				out.writeInt(254);
+			}
+		}
+		final RVector list = RSerialization.Reader.read(bytes.toByteArray());
+		@SuppressWarnings("unchecked")
+		final List<RVector> elements = (List<RVector>)list.m_values;
+		assertEquals(Arrays.asList("ä"),
+			Arrays.asList((String[])elements.get(0).getAttribute("class").m_values));
+		assertTrue(elements.get(1).inherits("ü"));
+		assertArrayEquals(new int[]{2}, (int[])elements.get(1).m_values);
+	}
+
+	private static void writeCharsxp(final DataOutputStream out, final byte[] value, final int levels)
+		throws IOException {
+		out.writeInt(RSerialization.CHARSXP | (levels << 12));
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	/**
+	 * Test that streams in other formats are rejected.
+	 */
+	@Test(expected = IOException.class)
+	public void testInvalidHeader() throws IOException {
+		RSerialization.Reader.read("A\n".getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.r.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.r.controller.ConsoleLikeRExecutor;
+import org.knime.r.controller.IRController.RException;
+import org.knime.r.controller.RController;
+import org.rosuda.REngine.REXP;
+
+/**
+ * Test for {@link ConsoleLikeRExecutor}.
+ */
+public class ConsoleLikeRExecutorTest {
+
+	private RController m_controller;
+
+	@Before
+	public void before() throws RException {
+		m_controller = new RController();
+		assertNotNull(m_controller);
+	}
+
+	@After
+	public void after() throws RException {
+		// terminate the R process used by the controller, otherwise it will be
+		// leaked.
+		try {
+			m_controller.close();
+		} finally {
+			m_controller.terminateRProcess();
+		}
+	}
+
+	/**
+	 * Test {@link ConsoleLikeRExecutor#executeCapturingOutput(String, ExecutionMonitor)} captures output, errors and
+	 * the value of the script.
+	 */
+	@Test
+	public void testExecuteCapturingOutput() throws Exception {
+		final ConsoleLikeRExecutor executor = new ConsoleLikeRExecutor(m_controller);
+		final REXP ret = executor.executeCapturingOutput("print('out')\nmessage('err')\nfoo <- 21\nfoo * 2",
+				new ExecutionMonitor());
+
+		assertEquals(42, ret.asInteger());
+		assertEquals("[1] \"out\"\n[1] 42\n", executor.getStdOut());
+		assertEquals("err\n", executor.getStdErr());
+		// the script is evaluated in the global environment
+		assertEquals(21, m_controller.eval("foo", true).asInteger());
+
+		// output of subsequent calls is appended
+		executor.executeCapturingOutputIgnoreResult("stop('failure')", new ExecutionMonitor());
+		assertTrue(executor.getStdErr().startsWith("err\n" + ConsoleLikeRExecutor.ERROR_PREFIX));
+	}
+
+	/**
+	 * Test that scripts with special and non-ASCII characters are transferred as is and that syntax errors are
+	 * reported.
+	 */
+	@Test
+	public void testScriptQuoting() throws Exception {
+		final ConsoleLikeRExecutor executor = new ConsoleLikeRExecutor(m_controller);
+		final String value = "\"quoted\" \\ back\tslash ä€😀";
+		final REXP ret = executor.executeCapturingOutput("x <- '" + value.replace("\\", "\\\\").replace("\t", "\\t")
+				+ "'\nx", new ExecutionMonitor());
+		assertEquals(value, ret.asString());
+
+		executor.executeCapturingOutputIgnoreResult("1 +* 2", new ExecutionMonitor());
+		assertTrue(executor.getStdErr().startsWith(ConsoleLikeRExecutor.ERROR_PREFIX));
+	}
+
+	/**
+	 * Test that the helper function survives clearing the workspace.
+	 */
+	@Test
+	public void testHelperSurvivesClearWorkspace() throws Exception {
+		final ConsoleLikeRExecutor executor = new ConsoleLikeRExecutor(m_controller);
+		executor.executeCapturingOutputIgnoreResult("a <- 1", new ExecutionMonitor());
+		m_controller.clearWorkspace(new ExecutionMonitor());
+
+		assertEquals(2, executor.executeCapturingOutput("1 + 1", new ExecutionMonitor()).asInteger());
+		assertEquals(0, m_controller.eval("length(ls())", true).asInteger());
+	}
+}
@@ -45,21 +45,67 @@
  */
 package org.knime.r.testing;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.BooleanCell.BooleanCellFactory;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.data.time.duration.DurationCellFactory;
+import org.knime.core.data.time.localdate.LocalDateCellFactory;
+import org.knime.core.data.time.localdatetime.LocalDateTimeCellFactory;
+import org.knime.core.data.time.zoneddatetime.ZonedDateTimeCellFactory;
+import org.knime.core.data.vector.bitvector.SparseBitVectorCell;
+import org.knime.core.data.vector.bitvector.SparseBitVectorCellFactory;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 import org.knime.r.controller.IRController.RControllerNotInitializedException;
 import org.knime.r.controller.IRController.RException;
 import org.knime.r.controller.RController;
+import org.knime.r.controller.RDataTransferSettings;
+import org.knime.r.controller.RDataTransferSettings.StringEncoding;
+import org.knime.r.controller.RDataTransferSettings.TransferEngine;
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 import org.rosuda.REngine.Rserve.RConnection;
@@ -73,10 +119,16 @@ public class RControllerTest {
 
 	private RController m_controller;
 
+	private ExecutionContext m_exec;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
 	@Before
 	public void before() throws RException {
 		m_controller = new RController();
 		assertNotNull(m_controller);
+		m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+				new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+				SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
 	}
 
 	@After
@@ -164,7 +216,7 @@ public void testMonitoredEvaluation() throws InterruptedException {
 			// make sure the evaluation can be started on the server.
 			progress.setExecuteCanceled();
 			// give some time to cancel the evaluation. Cancellation is checked
-			// every 200ms.
+			// every 50ms.
 			t.join(5000); // will return before the 5 seconds are over, if the
 							// test succeeds
 			assertFalse(t.isAlive());
@@ -200,7 +252,7 @@ public void testMonitoredEvaluation() throws InterruptedException {
 			});
 			t.start();
 			// give some time to cancel the evaluation. Cancellation is checked
-			// every 200ms.
+			// every 50ms.
 			t.join(1000); // Warning: Test may fail if evaluation takes longer on other machines
 			assertFalse(t.isAlive());
 		} finally {
@@ -211,4 +263,284 @@ public void testMonitoredEvaluation() throws InterruptedException {
 			assertFalse(t.isAlive());
 		}
 	}
+
+	/**
+	 * Test sending factor and character columns, whose factor levels grow over several batches, and receiving them
+	 * back.
+	 */
+	@Test
+	public void testStringEncodingRoundTrip() throws RException, CanceledExecutionException {
+		final DataTableSpec spec = new DataTableSpec(column("factor", StringCell.TYPE),
+				column("character", StringCell.TYPE), column("auto", StringCell.TYPE));
+		final DataRow[] rows = new DataRow[7];
+		for (int i = 0; i < rows.length; i++) {
+			final DataCell value = i == 3 ? DataType.getMissingCell() : new StringCell("v" + (i % 3));
+			rows[i] = new DefaultRow("r" + i, value, new StringCell("unique" + i), value);
+		}
+		final Map<String, StringEncoding> encodings = new HashMap<>();
+		encodings.put("factor", StringEncoding.FACTOR);
+		encodings.put("character", StringEncoding.CHARACTER);
+		final RDataTransferSettings settings =
+				new RDataTransferSettings().setBatchSize(2).setStringEncodings(encodings);
+		assertRoundTrip(createTable(spec, rows), settings, true);
+
+		final REXP classes = m_controller.eval("c(class(knime.in$factor), class(knime.in$character))", true);
+		assertArrayEquals(new String[]{"factor", "character"}, asStrings(classes));
+	}
+
+	/**
+	 * Test sending and receiving date, date and time and duration columns as R Date, POSIXct and difftime.
+	 */
+	@Test
+	public void testTemporalRoundTrip() throws RException, CanceledExecutionException {
+		final DataTableSpec spec = new DataTableSpec(column("date", LocalDateCellFactory.TYPE),
+				column("local", LocalDateTimeCellFactory.TYPE), column("zoned", ZonedDateTimeCellFactory.TYPE),
+				column("duration", DurationCellFactory.TYPE));
+		final LocalDateTime time = LocalDateTime.of(2024, 2, 29, 13, 45, 30, 250_000_000);
+		final BufferedDataTable table = createTable(spec,
+				new DefaultRow("a", LocalDateCellFactory.create(LocalDate.of(1960, 1, 1)),
+					LocalDateTimeCellFactory.create(time),
+					ZonedDateTimeCellFactory.create(ZonedDateTime.of(time, ZoneId.of("Europe/Berlin"))),
+					DurationCellFactory.create(Duration.ofSeconds(90, 500_000_000))),
+				new DefaultRow("b", DataType.getMissingCell(), DataType.getMissingCell(), DataType.getMissingCell(),
+					DataType.getMissingCell()),
+				new DefaultRow("c", LocalDateCellFactory.create(LocalDate.of(2038, 1, 20)),
+					LocalDateTimeCellFactory.create(time.minusYears(60)),
+					ZonedDateTimeCellFactory.create(ZonedDateTime.of(time.plusMonths(5), ZoneId.of("Europe/Berlin"))),
+					DurationCellFactory.create(Duration.ZERO)));
+		assertRoundTrip(table, new RDataTransferSettings(), true);
+		assertRoundTrip(table,
+				new RDataTransferSettings().setTransferEngine(TransferEngine.SERIALIZATION), true);
+	}
+
+	/**
+	 * Test sending and receiving long columns as bit64 integer64 without losing precision.
+	 */
+	@Test
+	public void testInteger64RoundTrip() throws RException, CanceledExecutionException {
+		assumePackage("bit64");
+		final DataTableSpec spec = new DataTableSpec(column("long", LongCell.TYPE));
+		final BufferedDataTable table = createTable(spec, new DefaultRow("a", new LongCell(Long.MAX_VALUE)),
+				new DefaultRow("b", DataType.getMissingCell()), new DefaultRow("c", new LongCell((1L << 53) + 1)),
+				new DefaultRow("d", new LongCell(Long.MIN_VALUE + 1)));
+		assertRoundTrip(table, new RDataTransferSettings().setBatchSize(2), true);
+		assertRoundTrip(table,
+				new RDataTransferSettings().setTransferEngine(TransferEngine.SERIALIZATION), true);
+	}
+
+	/**
+	 * Test sending list columns as flat values with per-row lengths and receiving them back.
+	 */
+	@Test
+	public void testListRoundTrip() throws RException, CanceledExecutionException {
+		final DataTableSpec spec = new DataTableSpec(column("ints", DataType.getType(ListCell.class, IntCell.TYPE)),
+				column("strings", DataType.getType(ListCell.class, StringCell.TYPE)));
+		final BufferedDataTable table = createTable(spec,
+				new DefaultRow("a", listCell(new IntCell(1), new IntCell(2), new IntCell(3)),
+					listCell(new StringCell("x"))),
+				new DefaultRow("b", listCell(), DataType.getMissingCell()),
+				new DefaultRow("c", DataType.getMissingCell(), listCell(new StringCell("y"), new StringCell("z"))),
+				new DefaultRow("d", listCell(new IntCell(4)), listCell()));
+		assertRoundTrip(table, new RDataTransferSettings().setBatchSize(2), true);
+	}
+
+	/**
+	 * Test that receiving a list column whose elements have different types keeps the type of each element.
+	 */
+	@Test
+	public void testMixedListImport() throws RException, CanceledExecutionException {
+		m_controller.eval("knime.mixed<-data.frame(id=1:2);knime.mixed$l<-list(1L,'a')", false);
+		final BufferedDataTable result =
+				m_controller.importBufferedDataTable("knime.mixed", false, new RDataTransferSettings(), m_exec);
+		try (CloseableRowIterator rows = result.iterator()) {
+			assertEquals(listCell(new IntCell(1)), rows.next().getCell(1));
+			assertEquals(listCell(new StringCell("a")), rows.next().getCell(1));
+		}
+	}
+
+	/**
+	 * Test sending fixed-length numeric collections as matrix columns and receiving them back.
+	 */
+	@Test
+	public void testMatrixRoundTrip() throws RException, CanceledExecutionException, REXPMismatchException {
+		final DataTableSpec spec =
+				new DataTableSpec(column("vectors", DataType.getType(ListCell.class, DoubleCell.TYPE)));
+		final DataRow[] rows = new DataRow[5];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new DefaultRow("r" + i, listCell(new DoubleCell(i), new DoubleCell(i + 0.5), new DoubleCell(-i)));
+		}
+		assertRoundTrip(createTable(spec, rows),
+				new RDataTransferSettings().setBatchSize(2).setSendMatrixColumns(true), true);
+		assertArrayEquals(new int[]{5, 3}, m_controller.eval("dim(knime.in$vectors)", true).asIntegers());
+	}
+
+	/**
+	 * Test sending bit vector columns as sparse matrices next to a list column and receiving them back.
+	 */
+	@Test
+	public void testSparseBitVectorRoundTrip() throws RException, CanceledExecutionException, REXPMismatchException {
+		assumePackage("Matrix");
+		final DataTableSpec spec = new DataTableSpec(column("bits", SparseBitVectorCell.TYPE),
+				column("ints", DataType.getType(ListCell.class, IntCell.TYPE)));
+		final DataRow[] rows = new DataRow[5];
+		for (int i = 0; i < rows.length; i++) {
+			final SparseBitVectorCellFactory factory = new SparseBitVectorCellFactory(10);
+			for (int bit = i; bit < 10; bit += 3) {
+				factory.set(bit);
+			}
+			rows[i] = new DefaultRow("r" + i, factory.createDataCell(), listCell(new IntCell(i)));
+		}
+		assertRoundTrip(createTable(spec, rows),
+				new RDataTransferSettings().setBatchSize(2).setSendSparseMatrices(true), true);
+		// helper variables shared by both conversions are removed
+		assertEquals(0, m_controller.eval("sum(exists(c('knime.n','j')))", true).asInteger());
+	}
+
+	/**
+	 * Test that patterned row keys, which are created in R instead of being sent, and row keys breaking the pattern
+	 * in a later batch are received back.
+	 */
+	@Test
+	public void testRowKeyRoundTrip() throws RException, CanceledExecutionException, REXPMismatchException {
+		final DataTableSpec spec = new DataTableSpec(column("int", IntCell.TYPE));
+		final String[][] keys = {{"Row0", "Row1", "Row2", "Row3", "Row4"}, {"Row0", "Row1", "Row2", "x", "Row4"},
+				{"Row10", "Row11", "Row12", "Row13", "Row14"}, {"1", "2", "3", "4", "5"}, {"7", "8", "9", "10", "11"}};
+		for (final String[] rowKeys : keys) {
+			final DataRow[] rows = new DataRow[rowKeys.length];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = new DefaultRow(rowKeys[i], new IntCell(i));
+			}
+			assertRoundTrip(createTable(spec, rows), new RDataTransferSettings().setBatchSize(2), true);
+			assertEquals(0, m_controller.eval("sum(exists(c('knime.row.names','knime.row.key.prefix')))", true)
+					.asInteger());
+		}
+	}
+
+	/**
+	 * Test sending fixed-width columns packed into one raw vector per batch and through memory-mapped files.
+	 */
+	@Test
+	public void testPackedRoundTrip() throws RException, CanceledExecutionException {
+		final BufferedDataTable table = createNumericTable(7);
+		assertRoundTrip(table, new RDataTransferSettings().setBatchSize(3), true);
+
+		final String previous = System.setProperty("knime.r.sharedmemory", "true");
+		try {
+			assertRoundTrip(table, new RDataTransferSettings().setBatchSize(3), true);
+		} finally {
+			if (previous == null) {
+				System.clearProperty("knime.r.sharedmemory");
+			} else {
+				System.setProperty("knime.r.sharedmemory", previous);
+			}
+		}
+	}
+
+	/**
+	 * Test sending and receiving a table in R's serialization format.
+	 */
+	@Test
+	public void testSerializationRoundTrip() throws RException, CanceledExecutionException {
+		final RDataTransferSettings settings = new RDataTransferSettings()
+				.setTransferEngine(TransferEngine.SERIALIZATION)
+				.setStringEncodings(Collections.singletonMap("string", StringEncoding.FACTOR));
+		assertRoundTrip(createNumericTable(7), settings, true);
+		assertRoundTrip(createNumericTable(7), settings.setSendRowNames(false), false);
+	}
+
+	/**
+	 * Test sending a table as Arrow Table, which is received back as data.frame.
+	 */
+	@Test
+	public void testArrowRoundTrip() throws RException, CanceledExecutionException {
+		assumePackage("arrow");
+		final RDataTransferSettings settings =
+				new RDataTransferSettings().setRType(RDataTransferSettings.ARROW_TABLE).setSendRowNames(false);
+		assertRoundTrip(createNumericTable(7), settings.setBatchSize(3), false);
+		assertRoundTrip(createNumericTable(7), settings.setTransferEngine(TransferEngine.SERIALIZATION), false);
+	}
+
+	/**
+	 * Create a table with logical, integer, double and string columns including missing values.
+	 */
+	private BufferedDataTable createNumericTable(final int rowCount) {
+		final DataTableSpec spec = new DataTableSpec(column("logical", BooleanCell.TYPE), column("int", IntCell.TYPE),
+				column("double", DoubleCell.TYPE), column("string", StringCell.TYPE));
+		final DataRow[] rows = new DataRow[rowCount];
+		for (int i = 0; i < rowCount; i++) {
+			rows[i] = i == 2
+					? new DefaultRow("r" + i, DataType.getMissingCell(), DataType.getMissingCell(),
+						DataType.getMissingCell(), DataType.getMissingCell())
+					: new DefaultRow("r" + i, BooleanCellFactory.create(i % 2 == 0), new IntCell(i - 3),
+						new DoubleCell(i / 4.0), new StringCell("s" + (i % 2)));
+		}
+		return createTable(spec, rows);
+	}
+
+	private static DataColumnSpec column(final String name, final DataType type) {
+		return new DataColumnSpecCreator(name, type).createSpec();
+	}
+
+	private static DataCell listCell(final DataCell... cells) {
+		return CollectionCellFactory.createListCell(Arrays.asList(cells));
+	}
+
+	private BufferedDataTable createTable(final DataTableSpec spec, final DataRow... rows) {
+		final BufferedDataContainer container = m_exec.createDataContainer(spec);
+		for (final DataRow row : rows) {
+			container.addRowToTable(row);
+		}
+		container.close();
+		return container.getTable();
+	}
+
+	private void assumePackage(final String name) throws RException {
+		try {
+			assumeTrue("R package \"" + name + "\" is not installed.", m_controller
+					.eval("as.integer(requireNamespace('" + name + "', quietly=TRUE))", true).asInteger() == 1);
+		} catch (REXPMismatchException e) {
+			fail("Checking for R package \"" + name + "\" did not return Integer.");
+		}
+	}
+
+	private static String[] asStrings(final REXP rexp) {
+		try {
+			return rexp.asStrings();
+		} catch (REXPMismatchException e) {
+			fail("Expected a character vector.");
+			return null;
+		}
+	}
+
+	/**
+	 * Send a table to R as <code>knime.in</code>, receive it back and check that cells and, optionally, row keys
+	 * are equal. Columns are matched by name, since sparse matrix columns are received after the other columns.
+	 */
+	private void assertRoundTrip(final BufferedDataTable table, final RDataTransferSettings settings,
+			final boolean compareRowKeys) throws RException, CanceledExecutionException {
+		m_controller.monitoredAssign("knime.in", table, m_exec, settings);
+		final BufferedDataTable result = m_controller.importBufferedDataTable("knime.in", false, settings, m_exec);
+
+		final DataTableSpec spec = table.getDataTableSpec();
+		final DataTableSpec resultSpec = result.getDataTableSpec();
+		assertEquals("Number of columns differs.", spec.getNumColumns(), resultSpec.getNumColumns());
+		assertEquals("Number of rows differs.", table.size(), result.size());
+		try (CloseableRowIterator expectedRows = table.iterator();
+				CloseableRowIterator actualRows = result.iterator()) {
+			while (expectedRows.hasNext()) {
+				final DataRow expected = expectedRows.next();
+				final DataRow actual = actualRows.next();
+				if (compareRowKeys) {
+					assertEquals("Row key differs.", expected.getKey(), actual.getKey());
+				}
+				for (int i = 0; i < spec.getNumColumns(); i++) {
+					final String name = spec.getColumnSpec(i).getName();
+					final int resultIndex = resultSpec.findColumnIndex(name);
+					assertTrue("Column \"" + name + "\" is missing.", resultIndex >= 0);
+					assertEquals("Cell of column \"" + name + "\" in row " + expected.getKey() + " differs.",
+							expected.getCell(i), actual.getCell(resultIndex));
+				}
+			}
+		}
+	}
 }
@@ -84,15 +84,20 @@ public void start(final BundleContext context) throws Exception {
                 case RPreferenceInitializer.PREF_RSERVE_MAXINBUF:
                     // Clear all resources
                     RConnectionFactory.clearExistingResources();
+                    RConnectionFactory.prewarm();
                     break;
                 case RPreferenceInitializer.PREF_R_HOME:
                     // Clear only the resources with the old R home path
                     final DefaultRPreferenceProvider oldPref = new DefaultRPreferenceProvider((String)event.getOldValue());
                     RConnectionFactory.clearExistingResources(oldPref);
+                    RConnectionFactory.prewarm();
                     break;
                 default:
             }
         });
+
+        // Start idle Rserve processes in the background, if configured
+        RConnectionFactory.prewarm();
     }
 
     /*
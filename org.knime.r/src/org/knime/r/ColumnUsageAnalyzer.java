@@ -0,0 +1,221 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the columns of an input table an R script uses, so that only these columns need to be sent to R.
+ * <p>
+ * The analysis is purely syntactic and conservative. It only succeeds if every occurrence of the table variable is a
+ * column access with a literal name, i.e. <code>knime.in$foo</code>, <code>knime.in$`foo bar`</code>,
+ * <code>knime.in[["foo"]]</code>, <code>knime.in["foo"]</code> or <code>knime.in[, "foo"]</code>. Any other use of
+ * the variable, as well as functions which access variables by name or evaluate code (e.g. <code>get</code>,
+ * <code>eval</code> or <code>source</code>), make the analysis fail, in which case all columns have to be sent.
+ *
+ * @since 5.12
+ */
+public final class ColumnUsageAnalyzer {
+
+    /** Functions through which a script may use a variable without naming it */
+    private static final Set<String> DYNAMIC_ACCESS = new HashSet<>(Arrays.asList("get", "get0", "mget", "eval",
+        "evalq", "parse", "source", "sys.source", "ls", "objects", "environment", "globalenv", ".GlobalEnv",
+        "sys.frame", "sys.frames", "parent.frame", "attach", "save", "save.image", "load"));
+
+    private enum TokenType {
+            NAME, STRING, OTHER
+    }
+
+    private static final class Token {
+        final TokenType m_type;
+
+        final String m_text;
+
+        Token(final TokenType type, final String text) {
+            m_type = type;
+            m_text = text;
+        }
+
+        boolean is(final String text) {
+            return (m_type == TokenType.OTHER) && m_text.equals(text);
+        }
+    }
+
+    private ColumnUsageAnalyzer() {
+    }
+
+    /**
+     * Find the columns of a table a script uses.
+     *
+     * @param script the R script
+     * @param variable name of the variable holding the table, e.g. "knime.in"
+     * @return names of the used columns, may contain names which are not columns of the table (and prefixes of column
+     *         names, as <code>$</code> matches partially), or <code>null</code> if the script may use the table in a
+     *         way which cannot be determined
+     */
+    public static Set<String> findUsedColumns(final String script, final String variable) {
+        final List<Token> tokens = tokenize(script);
+        if (tokens == null) {
+            return null;
+        }
+        final Set<String> columns = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            final Token token = tokens.get(i);
+            if (token.m_type != TokenType.NAME) {
+                continue;
+            }
+            if (DYNAMIC_ACCESS.contains(token.m_text)) {
+                return null;
+            }
+            if (!token.m_text.equals(variable)) {
+                continue;
+            }
+            final String column = getAccessedColumn(tokens, i + 1);
+            if (column == null) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * @return the name of the column accessed by the tokens following the table variable, <code>null</code> if they
+     *         are not a column access with a literal name
+     */
+    private static String getAccessedColumn(final List<Token> tokens, final int start) {
+        final Token first = get(tokens, start);
+        if (first == null) {
+            return null;
+        }
+        if (first.is("$")) {
+            final Token name = get(tokens, start + 1);
+            return (name != null) && (name.m_type != TokenType.OTHER) ? name.m_text : null;
+        }
+        if (first.is("[[")) {
+            return isString(get(tokens, start + 1)) && isOther(get(tokens, start + 2), "]]")
+                ? get(tokens, start + 1).m_text : null;
+        }
+        if (first.is("[")) {
+            if (isString(get(tokens, start + 1)) && isOther(get(tokens, start + 2), "]")) {
+                return get(tokens, start + 1).m_text;
+            }
+            if (isOther(get(tokens, start + 1), ",") && isString(get(tokens, start + 2))
+                && isOther(get(tokens, start + 3), "]")) {
+                return get(tokens, start + 2).m_text;
+            }
+        }
+        return null;
+    }
+
+    private static Token get(final List<Token> tokens, final int index) {
+        return index < tokens.size() ? tokens.get(index) : null;
+    }
+
+    private static boolean isString(final Token token) {
+        return (token != null) && (token.m_type == TokenType.STRING);
+    }
+
+    private static boolean isOther(final Token token, final String text) {
+        return (token != null) && token.is(text);
+    }
+
+    /**
+     * Split a script into names (including backquoted names), string literals and other tokens, dropping comments
+     * and whitespace. Only <code>[[</code> and <code>]]</code> are combined into single tokens, all other characters
+     * are tokens of their own.
+     *
+     * @return the tokens, <code>null</code> if the script contains an unterminated string
+     */
+    private static List<Token> tokenize(final String script) {
+        final List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < script.length()) {
+            final char c = script.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#') {
+                while ((i < script.length()) && (script.charAt(i) != '\n')) {
+                    i++;
+                }
+            } else if ((c == '"') || (c == '\'') || (c == '`')) {
+                final StringBuilder value = new StringBuilder();
+                int j = i + 1;
+                while ((j < script.length()) && (script.charAt(j) != c)) {
+                    if ((script.charAt(j) == '\\') && (j + 1 < script.length())) {
+                        j++;
+                    }
+                    value.append(script.charAt(j));
+                    j++;
+                }
+                if (j >= script.length()) {
+                    return null;
+                }
+                tokens.add(new Token(c == '`' ? TokenType.NAME : TokenType.STRING, value.toString()));
+                i = j + 1;
+            } else if (Character.isLetterOrDigit(c) || (c == '.') || (c == '_')) {
+                int j = i + 1;
+                while ((j < script.length()) && (Character.isLetterOrDigit(script.charAt(j))
+                    || (script.charAt(j) == '.') || (script.charAt(j) == '_'))) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.NAME, script.substring(i, j)));
+                i = j;
+            } else if (((c == '[') || (c == ']')) && (i + 1 < script.length()) && (script.charAt(i + 1) == c)) {
+                tokens.add(new Token(TokenType.OTHER, script.substring(i, i + 2)));
+                i += 2;
+            } else {
+                tokens.add(new Token(TokenType.OTHER, String.valueOf(c)));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
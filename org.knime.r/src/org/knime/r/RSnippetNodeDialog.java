@@ -54,7 +54,9 @@
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.JCheckBox;
@@ -81,6 +83,7 @@
 import org.knime.core.node.workflow.VariableType;
 import org.knime.ext.r.bin.preferences.RPreferenceInitializer;
 import org.knime.ext.r.bin.preferences.RPreferenceProvider;
+import org.knime.ext.r.node.local.port.RPortObject;
 import org.knime.r.template.DefaultTemplateController;
 import org.knime.r.template.TemplatesPanel;
 
@@ -94,6 +97,9 @@ public class RSnippetNodeDialog extends DataAwareNodeDialogPane {
 
     private static final String SNIPPET_TAB = "R Snippet";
 
+    /** Values of the knime.in type setting, in the order of {@link #m_knimeInType} */
+    private static final List<String> KNIME_IN_TYPES = Arrays.asList("data.frame", "data.table", "arrow");
+
     private final RSnippetNodePanel m_panel;
 
     private RPreferenceProvider m_preferenceProvider;
@@ -114,10 +120,20 @@ public class RSnippetNodeDialog extends DataAwareNodeDialogPane {
 
     private JCheckBox m_sendRowNames;
 
+    private JCheckBox m_sendSparseMatrices;
+
+    private JCheckBox m_sendMatrixColumns;
+
+    private JCheckBox m_sendUsedColumnsOnly;
+
+    private JCheckBox m_useSerialization;
+
     private JComboBox<String> m_knimeInType;
 
     private JFormattedTextField m_sendBatchSize;
 
+    private StringEncodingPanel m_stringEncodings;
+
     private RHomeSelectionPanel m_rHomePanel;
 
     /**
@@ -236,9 +252,44 @@ private JPanel createAdvancedPanel() {
             p.add(m_sendRowNames, gbc);
             gbc.gridy++;
 
+            // Send bit vectors as sparse matrices
+            m_sendSparseMatrices = new JCheckBox("Send bit vectors as sparse matrices.");
+            m_sendSparseMatrices.setToolTipText("Bit vector columns are sent as Matrix::dgCMatrix named "
+                + "\"knime.in.matrix.<column>\" instead of as strings. Requires the \"Matrix\" package.");
+            m_sendSparseMatrices.setEnabled(m_tableInPort >= 0);
+            p.add(m_sendSparseMatrices, gbc);
+            gbc.gridy++;
+
+            // Send numeric collections as matrices
+            m_sendMatrixColumns = new JCheckBox("Send numeric collections as matrices.");
+            m_sendMatrixColumns.setToolTipText("Numeric collection columns whose cells all have the same length "
+                + "become matrix columns of a knime.in data.frame instead of list columns.");
+            m_sendMatrixColumns.setEnabled(m_tableInPort >= 0);
+            p.add(m_sendMatrixColumns, gbc);
+            gbc.gridy++;
+
+            // Send only used columns, not supported for nodes which output the R workspace
+            m_sendUsedColumnsOnly = new JCheckBox("Send only columns used by the script.");
+            m_sendUsedColumnsOnly.setToolTipText("Only columns accessed by name, e.g. knime.in$foo, are sent. All "
+                + "columns are sent if knime.in is used in any other way.");
+            if (!m_config.getOutPortTypes().contains(RPortObject.TYPE)) {
+                m_sendUsedColumnsOnly.setEnabled(m_tableInPort >= 0);
+                p.add(m_sendUsedColumnsOnly, gbc);
+                gbc.gridy++;
+            }
+
+            // Transfer tables serialized
+            m_useSerialization = new JCheckBox("Transfer tables in R serialization format.");
+            m_useSerialization.setToolTipText("Tables are written in R's native serialization format, which is "
+                + "usually faster for large tables. Not supported for collection and bit vector columns.");
+            p.add(m_useSerialization, gbc);
+            gbc.gridy++;
+
             // knime.in type
-            m_knimeInType = new JComboBox<>(new String[]{"data.frame", "data.table (experimental!)"});
-            m_knimeInType.setToolTipText("R type for knime.in. \"data.table\" requires the \"data.table\" package.");
+            m_knimeInType = new JComboBox<>(
+                new String[]{"data.frame", "data.table (experimental!)", "Arrow Table (experimental!)"});
+            m_knimeInType.setToolTipText("R type for knime.in. \"data.table\" requires the \"data.table\" package, "
+                + "\"Arrow Table\" the \"arrow\" package.");
             m_knimeInType.setEnabled(m_tableInPort >= 0);
             p.add(new JLabel("Type of \"knime.in\" variable."), gbc);
             gbc.gridx++;
@@ -256,7 +307,7 @@ private JPanel createAdvancedPanel() {
             formatter.setValueClass(Integer.class);
             m_sendBatchSize = new JFormattedTextField(formatter);
             m_sendBatchSize.setToolTipText(
-                "Number of rows to send to R per batch. This amount of rows will be kept in memory on KNIME side.");
+                "Number of rows of the first batch sent to R. Following batches are sized by transfer speed.");
             m_sendBatchSize.setEnabled(m_tableInPort >= 0);
             p.add(new JLabel("Number of rows to send to R per batch"), gbc);
             gbc.gridx++;
@@ -264,6 +315,15 @@ private JPanel createAdvancedPanel() {
             gbc.gridx = 0;
             gbc.gridy++;
 
+            // Per-column encoding of string columns
+            if (m_tableInPort >= 0) {
+                m_stringEncodings = new StringEncodingPanel();
+                gbc.gridwidth = 2;
+                p.add(m_stringEncodings, gbc);
+                gbc.gridwidth = 1;
+                gbc.gridy++;
+            }
+
         }
 
         // R home selection
@@ -300,14 +360,21 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectS
         if (m_tableOutPort >= 0) {
             m_outNonNumbersAsMissing.setSelected(s.getOutNonNumbersAsMissing());
         }
+        if ((m_tableInPort >= 0) || (m_tableOutPort >= 0)) {
+            m_useSerialization.setSelected(s.getUseSerialization());
+        }
 
         if (m_tableInPort >= 0) {
             m_sendBatchSize.setValue(new Integer(s.getSendBatchSize()));
 
             final String type = s.getKnimeInType();
-            m_knimeInType.setSelectedIndex(type.equals("data.table") ? 1 : 0);
+            m_knimeInType.setSelectedIndex(KNIME_IN_TYPES.indexOf(type));
+            m_stringEncodings.loadSettings(spec, s.getStringEncodings());
 
             m_sendRowNames.setSelected(s.getSendRowNames());
+            m_sendSparseMatrices.setSelected(s.getSendSparseMatrices());
+            m_sendMatrixColumns.setSelected(s.getSendMatrixColumns());
+            m_sendUsedColumnsOnly.setSelected(s.getSendUsedColumnsOnly());
         }
 
         m_rHomePanel.loadSettingsFrom(s);
@@ -327,13 +394,20 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObject[
         if (m_tableOutPort >= 0) {
             m_outNonNumbersAsMissing.setSelected(s.getOutNonNumbersAsMissing());
         }
+        if ((m_tableInPort >= 0) || (m_tableOutPort >= 0)) {
+            m_useSerialization.setSelected(s.getUseSerialization());
+        }
         if (m_tableInPort >= 0) {
             m_sendRowNames.setSelected(s.getSendRowNames());
+            m_sendSparseMatrices.setSelected(s.getSendSparseMatrices());
+            m_sendMatrixColumns.setSelected(s.getSendMatrixColumns());
+            m_sendUsedColumnsOnly.setSelected(s.getSendUsedColumnsOnly());
 
             m_sendBatchSize.setValue(new Integer(s.getSendBatchSize()));
 
             final String type = s.getKnimeInType();
-            m_knimeInType.setSelectedIndex(type.equals("data.table") ? 1 : 0);
+            m_knimeInType.setSelectedIndex(KNIME_IN_TYPES.indexOf(type));
+            m_stringEncodings.loadSettings(spec, s.getStringEncodings());
         }
 
         m_rHomePanel.loadSettingsFrom(s);
@@ -370,10 +444,17 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         if (m_tableOutPort >= 0) {
             s.setOutNonNumbersAsMissing(m_outNonNumbersAsMissing.isSelected());
         }
+        if ((m_tableInPort >= 0) || (m_tableOutPort >= 0)) {
+            s.setUseSerialization(m_useSerialization.isSelected());
+        }
         if (m_tableInPort >= 0) {
             s.setSendRowNames(m_sendRowNames.isSelected());
+            s.setSendSparseMatrices(m_sendSparseMatrices.isSelected());
+            s.setSendMatrixColumns(m_sendMatrixColumns.isSelected());
+            s.setSendUsedColumnsOnly(m_sendUsedColumnsOnly.isSelected());
             s.setSendBatchSize((Integer)m_sendBatchSize.getValue());
-            s.setKnimeInType(m_knimeInType.getSelectedIndex() == 0 ? "data.frame" : "data.table");
+            s.setKnimeInType(KNIME_IN_TYPES.get(m_knimeInType.getSelectedIndex()));
+            s.setStringEncodings(m_stringEncodings.getStringEncodings());
         }
 
         m_rHomePanel.saveSettingsTo(s);
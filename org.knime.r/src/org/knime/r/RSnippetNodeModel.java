@@ -54,12 +54,15 @@
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.swing.text.BadLocationException;
 
 import org.knime.base.node.util.exttool.ExtToolOutputNodeModel;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -161,7 +164,7 @@ private PortObject[] executeInternal(final RSnippetSettings settings, final Port
         final FlowVariableRepository flowVarRepo = new FlowVariableRepository(getAvailableInputFlowVariables());
 
         try (final RController controller = new RController(true, getRPreferences())) {
-            controller.initialize();
+            controller.initialize(exec);
             exec.checkCanceled();
             final PortObject[] out = executeSnippet(controller, inData, flowVarRepo, exec);
 
@@ -236,8 +239,10 @@ protected PortObject[] executeSnippet(final RController controller, final String
             exec.setProgress(0.0);
 
             final RSnippetSettings s = m_snippet.getSettings();
-            controller.importDataFromPorts(inData, exec.createSubExecutionContext(importTime), s.getSendBatchSize(),
-                s.getKnimeInType(), s.getSendRowNames());
+            final PortObject[] importData =
+                s.getSendUsedColumnsOnly() ? filterUsedColumns(script, inData, exec) : inData;
+            controller.importDataFromPorts(importData, exec.createSubExecutionContext(importTime),
+                s.getDataTransferSettings());
             controller.exportFlowVariables(flowVarRepo.getInFlowVariables(), "knime.flow.in", exec);
 
             tempWorkspaceFile = FileUtil.createTempFile("R-workspace", ".RData");
@@ -267,6 +272,43 @@ protected PortObject[] executeSnippet(final RController controller, final String
         }
     }
 
+    /**
+     * Reduce the input tables to the columns the script uses, see {@link ColumnUsageAnalyzer}. The tables are kept
+     * as they are if the columns cannot be determined or if the R workspace is output, as it would lack the other
+     * columns.
+     *
+     * @return the input ports with the reduced tables
+     */
+    private PortObject[] filterUsedColumns(final String script, final PortObject[] inData, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        if (m_config.getOutPortTypes().contains(RPortObject.TYPE)) {
+            return inData;
+        }
+        final Set<String> usedColumns = ColumnUsageAnalyzer.findUsedColumns(
+            m_config.getScriptPrefix() + "\n" + script + "\n" + m_config.getScriptSuffix(), "knime.in");
+        if (usedColumns == null) {
+            return inData;
+        }
+
+        final PortObject[] filtered = inData.clone();
+        for (int i = 0; i < inData.length; i++) {
+            if (inData[i] instanceof BufferedDataTable) {
+                final BufferedDataTable table = (BufferedDataTable)inData[i];
+                // $ matches column names partially, so columns starting with a used name are kept as well
+                final List<String> keep = new ArrayList<>();
+                for (final DataColumnSpec column : table.getDataTableSpec()) {
+                    if (usedColumns.stream().anyMatch(column.getName()::startsWith)) {
+                        keep.add(column.getName());
+                    }
+                }
+                final ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+                rearranger.keepOnly(keep.toArray(new String[keep.size()]));
+                filtered[i] = exec.createColumnRearrangeTable(table, rearranger, exec.createSubProgress(0.0));
+            }
+        }
+        return filtered;
+    }
+
     /**
      * @return Script to be run in
      *         {@link #executeSnippet(RController, PortObject[], FlowVariableRepository, ExecutionContext)}
@@ -285,22 +327,17 @@ private void runRScript(final RController controller, final String script, final
 
         final ConsoleLikeRExecutor executor = new ConsoleLikeRExecutor(controller);
 
-        exec.setMessage("Setting up output capturing");
-        executor.setupOutputCapturing(exec);
-
         exec.setMessage("Executing R script");
 
         // run prefix and script itself
-        executor.executeIgnoreResult("setwd(\"" + tempWorkspaceFile.getParentFile().getAbsolutePath().replace('\\', '/')
-            + "\")\n" + m_config.getScriptPrefix() + "\n" + script, exec);
+        executor.executeCapturingOutputIgnoreResult("setwd(\""
+            + tempWorkspaceFile.getParentFile().getAbsolutePath().replace('\\', '/') + "\")\n"
+            + m_config.getScriptPrefix() + "\n" + script, exec);
         // run postfix in a separate evaluation to make sure we are not preventing the return value of the script being printed, which is
         // important for ggplot2 graphs, which would otherwise not be drawn onto the graphics (png) device.
-        executor.executeIgnoreResult(
+        executor.executeCapturingOutputIgnoreResult(
             m_config.getScriptSuffix() + "\n" + RController.R_LOADED_LIBRARIES_VARIABLE + "<-(.packages())", exec);
 
-        exec.setMessage("Collecting captured output");
-        executor.finishOutputCapturing(exec);
-
         // process the return value of error capturing and update Error and
         // Output views accordingly
         if (!executor.getStdOut().isEmpty()) {
@@ -319,11 +356,6 @@ private void runRScript(final RController controller, final String script, final
             }
         }
 
-        // cleanup temporary variables of output capturing and
-        // consoleLikeCommand stuff
-        exec.setMessage("Cleaning up");
-        executor.cleanup(exec);
-
         if (m_hasROutPorts) {
             // save workspace to temporary file
             m_librariesInR = importListOfLibrariesFromR(controller);
@@ -347,7 +379,8 @@ protected void reset() {
 
     private BufferedDataTable importDataFromR(final RController controller, final boolean nonNumbersAsMissing,
         final ExecutionContext exec) throws RException, CanceledExecutionException {
-        final BufferedDataTable out = controller.importBufferedDataTable("knime.out", nonNumbersAsMissing, exec);
+        final BufferedDataTable out = controller.importBufferedDataTable("knime.out", nonNumbersAsMissing,
+            m_snippet.getSettings().getDataTransferSettings(), exec);
         return out;
     }
 
@@ -460,7 +460,7 @@ protected Void doInBackgroundWithContext() throws Exception {
                             m_exec.setMessage("Sending input data to R");
                             final RSnippetSettings s = m_snippet.getSettings();
                             m_controller.importDataFromPorts(m_input, m_exec.createSubProgress(0.6),
-                                s.getSendBatchSize(), s.getKnimeInType(), s.getSendRowNames());
+                                s.getDataTransferSettings());
                         }
 
                         m_exec.setMessage("Sending flow variables to R");
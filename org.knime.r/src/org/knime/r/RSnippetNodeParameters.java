@@ -45,11 +45,16 @@
  */
 package org.knime.r;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.node.parameters.NodeParameters;
 import org.knime.node.parameters.Widget;
+import org.knime.node.parameters.array.ArrayWidget;
 import org.knime.node.parameters.layout.Layout;
 import org.knime.node.parameters.layout.Section;
 import org.knime.node.parameters.migration.LoadDefaultsForAbsentFields;
@@ -62,7 +67,9 @@
 import org.knime.node.parameters.updates.EffectPredicateProvider;
 import org.knime.node.parameters.updates.ParameterReference;
 import org.knime.node.parameters.updates.ValueReference;
+import org.knime.node.parameters.widget.choices.ChoicesProvider;
 import org.knime.node.parameters.widget.choices.Label;
+import org.knime.node.parameters.widget.choices.util.CompatibleColumnsProvider.StringColumnsProvider;
 import org.knime.node.parameters.widget.number.NumberInputWidget;
 import org.knime.node.parameters.widget.number.NumberInputWidgetValidation.MinValidation.IsPositiveIntegerValidation;
 
@@ -116,20 +123,64 @@ interface RHomeSection {
             + "By default knime.in is a data.frame. "
             + "For large input tables, using data.table is likely more memory-efficient "
             + "and may therefore be faster. "
-            + "Note: support for data.table is experimental and requires the data.table R package.")
+            + "Note: support for data.table is experimental and requires the data.table R package. "
+            + "An Arrow Table requires the arrow R package and is experimental as well.")
     @Persistor(KnimeInTypePersistor.class)
     @Layout(AdvancedSection.class)
     KnimeInType m_knimeInType = KnimeInType.DATA_FRAME;
 
     @Widget(title = "Send batch size",
         description = "The input of the R Snippet node is sent in row batches (default: 10000 rows at a time). "
-            + "This value controls how many rows KNIME retains in memory at any given time during the transfer. "
-            + "For large tables, a higher batch size may be faster but will require additional memory.")
+            + "This value is the size of the first batch. The following batches are grown or shrunk depending on the "
+            + "measured transfer speed, limited by the maximum buffer size of Rserve and the available memory.")
     @NumberInputWidget(minValidation = IsPositiveIntegerValidation.class)
     @Persist(configKey = "sendBatchSize")
     @Layout(AdvancedSection.class)
     int m_sendBatchSize = 10000;
 
+    @Widget(title = "Send bit vectors as sparse matrices",
+        description = "Send bit vector columns of the input table as sparse matrices (Matrix::dgCMatrix) with one "
+            + "row per table row instead of as string columns of knime.in. The matrix of a column is named "
+            + "knime.in.matrix. followed by the column name. Requires the Matrix R package. "
+            + "Independent of this option, sparse matrices named knime.out.matrix. followed by a column name, which "
+            + "have one row per row of knime.out, are added to the output table as bit vector columns.")
+    @Persist(configKey = "sendSparseMatrices")
+    @Layout(AdvancedSection.class)
+    boolean m_sendSparseMatrices = false;
+
+    @Widget(title = "Send numeric collections as matrices",
+        description = "Send collection columns of numbers whose cells all have the same length, e.g. embeddings or "
+            + "fingerprints, as matrix columns of knime.in with one row per table row instead of as list columns. "
+            + "Only applies if knime.in is a data.frame.")
+    @Persist(configKey = "sendMatrixColumns")
+    @Layout(AdvancedSection.class)
+    boolean m_sendMatrixColumns = false;
+
+    @Widget(title = "Send only columns used by the script",
+        description = "Send only the columns of the input table which the script accesses by name, e.g. "
+            + "knime.in$foo or knime.in[[\"foo\"]], and skip all others. If knime.in is used in any other way, or the "
+            + "script uses functions such as get, eval or source, all columns are sent.")
+    @Persist(configKey = "sendUsedColumnsOnly")
+    @Layout(AdvancedSection.class)
+    boolean m_sendUsedColumnsOnly = false;
+
+    @Widget(title = "Transfer tables in R serialization format",
+        description = "Write the input table in R's native serialization format, which R reads with a single call, "
+            + "and receive the output table serialized by R in chunks. Usually faster for large tables. Tables with "
+            + "collection or bit vector columns, and output data.frames with columns other than logical, integer, "
+            + "double, character and factor vectors are transferred as usual.")
+    @Persist(configKey = "useSerialization")
+    @Layout(AdvancedSection.class)
+    boolean m_useSerialization = false;
+
+    @Widget(title = "String column encodings",
+        description = "Override how string columns are sent to R. By default, a column is sent as factor if it has "
+            + "few distinct values and as character vector otherwise.")
+    @ArrayWidget(elementTitle = "Column", addButtonText = "Add column")
+    @Persistor(StringEncodingsPersistor.class)
+    @Layout(AdvancedSection.class)
+    StringColumnEncoding[] m_stringEncodings = new StringColumnEncoding[0];
+
     // R Home section predicates and refs
 
     static final class OverwriteRHomeRef implements ParameterReference<Boolean> {
@@ -206,7 +257,79 @@ enum KnimeInType {
         @Label(value = "data.table (experimental)",
             description = "Use a data.table for knime.in. May be more memory-efficient for large tables. "
                 + "Requires the data.table R package. Experimental.")
-        DATA_TABLE;
+        DATA_TABLE,
+
+        @Label(value = "Arrow Table (experimental)",
+            description = "Use an Arrow Table of the arrow R package for knime.in. The table is sent in R "
+                + "serialization format where possible. Requires the arrow R package. Experimental.")
+        ARROW_TABLE;
+    }
+
+    // String column encodings, see RSnippetSettings#getStringEncodings()
+
+    static final class StringColumnEncoding implements NodeParameters {
+
+        @Widget(title = "Column", description = "String column of the input table.")
+        @ChoicesProvider(StringColumnsProvider.class)
+        String m_column = "";
+
+        @Widget(title = "Encoding", description = "R type the column is sent as.")
+        StringEncodingChoice m_encoding = StringEncodingChoice.FACTOR;
+
+        StringColumnEncoding() {
+        }
+
+        StringColumnEncoding(final String column, final StringEncodingChoice encoding) {
+            m_column = column;
+            m_encoding = encoding;
+        }
+    }
+
+    /** Constant names match {@link org.knime.r.controller.RDataTransferSettings.StringEncoding} */
+    enum StringEncodingChoice {
+        @Label(value = "Automatic", description = "Factor or character vector depending on the number of distinct "
+            + "values of the column.")
+        AUTO,
+
+        @Label(value = "Factor", description = "Efficient for columns with few distinct values.")
+        FACTOR,
+
+        @Label(value = "Character vector", description = "Efficient for columns with mostly distinct values.")
+        CHARACTER;
+    }
+
+    static final class StringEncodingsPersistor implements NodeParametersPersistor<StringColumnEncoding[]> {
+
+        private static final String COLUMNS_KEY = "stringEncodingColumns";
+
+        private static final String ENCODINGS_KEY = "stringEncodings";
+
+        @Override
+        public StringColumnEncoding[] load(final NodeSettingsRO settings) throws InvalidSettingsException {
+            final String[] columns = settings.getStringArray(COLUMNS_KEY, new String[0]);
+            final String[] encodings = settings.getStringArray(ENCODINGS_KEY, new String[0]);
+            final List<StringColumnEncoding> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(columns.length, encodings.length); i++) {
+                try {
+                    result.add(new StringColumnEncoding(columns[i], StringEncodingChoice.valueOf(encodings[i])));
+                } catch (final IllegalArgumentException e) {
+                    // drop unknown encodings, the column is then encoded automatically
+                }
+            }
+            return result.toArray(new StringColumnEncoding[0]);
+        }
+
+        @Override
+        public void save(final StringColumnEncoding[] obj, final NodeSettingsWO settings) {
+            settings.addStringArray(COLUMNS_KEY, Stream.of(obj).map(e -> e.m_column).toArray(String[]::new));
+            settings.addStringArray(ENCODINGS_KEY, Stream.of(obj).map(e -> e.m_encoding.name()).toArray(String[]::new));
+        }
+
+        @Override
+        public String[][] getConfigPaths() {
+            // the values of both arrays are paired by index, which flow variables cannot keep consistent
+            return new String[0][];
+        }
     }
 
     // KnimeInType persistor
@@ -216,12 +339,23 @@ static final class KnimeInTypePersistor implements NodeParametersPersistor<Knime
         @Override
         public KnimeInType load(final NodeSettingsRO settings) throws InvalidSettingsException {
             final String type = settings.getString("knimeInType", "data.frame");
-            return "data.table".equals(type) ? KnimeInType.DATA_TABLE : KnimeInType.DATA_FRAME;
+            if ("data.table".equals(type)) {
+                return KnimeInType.DATA_TABLE;
+            }
+            return "arrow".equals(type) ? KnimeInType.ARROW_TABLE : KnimeInType.DATA_FRAME;
         }
 
         @Override
         public void save(final KnimeInType obj, final NodeSettingsWO settings) {
-            settings.addString("knimeInType", obj == KnimeInType.DATA_TABLE ? "data.table" : "data.frame");
+            final String type;
+            if (obj == KnimeInType.DATA_TABLE) {
+                type = "data.table";
+            } else if (obj == KnimeInType.ARROW_TABLE) {
+                type = "arrow";
+            } else {
+                type = "data.frame";
+            }
+            settings.addString("knimeInType", type);
         }
 
         @Override
@@ -47,9 +47,16 @@
  */
 package org.knime.r;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.config.ConfigRO;
 import org.knime.core.node.config.ConfigWO;
+import org.knime.r.controller.RDataTransferSettings;
+import org.knime.r.controller.RDataTransferSettings.StringEncoding;
+import org.knime.r.controller.RDataTransferSettings.TransferEngine;
 
 /**
  * The settings of the java snippet node.
@@ -61,6 +68,8 @@ public class RSnippetSettings {
 
     private static final String DATA_TABLE = "data.table";
 
+    private static final String ARROW_TABLE = "arrow";
+
     private static final String SCRIPT = "script";
 
     private static final String TEMPLATE_UUID = "templateUUID";
@@ -75,6 +84,18 @@ public class RSnippetSettings {
 
     private static final String SEND_BATCH_SIZE = "sendBatchSize";
 
+    private static final String SEND_SPARSE_MATRICES = "sendSparseMatrices";
+
+    private static final String SEND_MATRIX_COLUMNS = "sendMatrixColumns";
+
+    private static final String SEND_USED_COLUMNS_ONLY = "sendUsedColumnsOnly";
+
+    private static final String USE_SERIALIZATION = "useSerialization";
+
+    private static final String STRING_ENCODING_COLUMNS = "stringEncodingColumns";
+
+    private static final String STRING_ENCODINGS = "stringEncodings";
+
     private static final String OVERWRITE_R_HOME = "overwriteRHome";
 
     static final String R_HOME_PATH = "rHome";
@@ -106,6 +127,21 @@ public class RSnippetSettings {
     /** R type to use for the knime.in variable */
     private String m_knimeInType;
 
+    /** Whether to send bit vector columns as sparse matrices */
+    private boolean m_sendSparseMatrices;
+
+    /** Whether to send numeric collection columns of constant length as matrix columns */
+    private boolean m_sendMatrixColumns;
+
+    /** Whether to send only the columns of the input table the script uses */
+    private boolean m_sendUsedColumnsOnly;
+
+    /** Whether to transfer tables in R's serialization format */
+    private boolean m_useSerialization;
+
+    /** Encoding of string columns by column name, columns not contained are encoded automatically */
+    private Map<String, StringEncoding> m_stringEncodings;
+
     /** If a R home separate from the default should be used */
     private boolean m_overwriteRHome;
 
@@ -129,6 +165,11 @@ public RSnippetSettings() {
         m_sendRowNames = true;
         m_sendBatchSize = 10000;
         m_knimeInType = DATA_FRAME;
+        m_sendSparseMatrices = false;
+        m_sendMatrixColumns = false;
+        m_sendUsedColumnsOnly = false;
+        m_useSerialization = false;
+        m_stringEncodings = new LinkedHashMap<>();
         setOverwriteRHome(false);
         m_rHomePath = "";
         m_useRHomePath = true;
@@ -148,6 +189,13 @@ public void saveSettings(final ConfigWO settings) {
         settings.addBoolean(SEND_ROW_NAMES, m_sendRowNames);
         settings.addInt(SEND_BATCH_SIZE, getSendBatchSize());
         settings.addString(KNIME_IN_TYPE, getKnimeInType());
+        settings.addBoolean(SEND_SPARSE_MATRICES, m_sendSparseMatrices);
+        settings.addBoolean(SEND_MATRIX_COLUMNS, m_sendMatrixColumns);
+        settings.addBoolean(SEND_USED_COLUMNS_ONLY, m_sendUsedColumnsOnly);
+        settings.addBoolean(USE_SERIALIZATION, m_useSerialization);
+        settings.addStringArray(STRING_ENCODING_COLUMNS, m_stringEncodings.keySet().toArray(new String[0]));
+        settings.addStringArray(STRING_ENCODINGS,
+            m_stringEncodings.values().stream().map(StringEncoding::name).toArray(String[]::new));
         settings.addBoolean(OVERWRITE_R_HOME, isOverwriteRHome());
         settings.addString(R_HOME_PATH, getRHomePath());
         settings.addBoolean(USE_R_HOME_PATH, hasRHomePath());
@@ -177,13 +225,34 @@ public void loadSettings(final ConfigRO settings) throws InvalidSettingsExceptio
         setSendBatchSize(settings.getInt(SEND_BATCH_SIZE, 10000));
 
         final String type = settings.getString(KNIME_IN_TYPE, DATA_FRAME);
-        if (DATA_FRAME.equals(type) || DATA_TABLE.equals(type)) {
+        if (isKnimeInType(type)) {
             setKnimeInType(type);
         } else {
             throw new InvalidSettingsException(
-                "Invalid type for knime.in: Can only be \"data.frame\" or \"data.table\".");
+                "Invalid type for knime.in: Can only be \"data.frame\", \"data.table\" or \"arrow\".");
         }
 
+        // added in 5.12
+        setSendSparseMatrices(settings.getBoolean(SEND_SPARSE_MATRICES, false));
+        setSendMatrixColumns(settings.getBoolean(SEND_MATRIX_COLUMNS, false));
+        setSendUsedColumnsOnly(settings.getBoolean(SEND_USED_COLUMNS_ONLY, false));
+        setUseSerialization(settings.getBoolean(USE_SERIALIZATION, false));
+        final String[] columns = settings.getStringArray(STRING_ENCODING_COLUMNS, new String[0]);
+        final String[] encodings = settings.getStringArray(STRING_ENCODINGS, new String[0]);
+        if (columns.length != encodings.length) {
+            throw new InvalidSettingsException("Number of string column encodings does not match number of columns.");
+        }
+        final Map<String, StringEncoding> stringEncodings = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            try {
+                stringEncodings.put(columns[i], StringEncoding.valueOf(encodings[i]));
+            } catch (final IllegalArgumentException e) {
+                throw new InvalidSettingsException(
+                    "Invalid encoding \"" + encodings[i] + "\" for string column \"" + columns[i] + "\".", e);
+            }
+        }
+        setStringEncodings(stringEncodings);
+
         setOverwriteRHome(settings.getBoolean(OVERWRITE_R_HOME, false));
         setRHomePath(settings.getString(R_HOME_PATH, ""));
         setUseRHomePath(settings.getBoolean(USE_R_HOME_PATH, true));
@@ -211,12 +280,29 @@ public void loadSettingsForDialog(final ConfigRO settings) {
         setSendBatchSize(settings.getInt(SEND_BATCH_SIZE, 10000));
 
         final String type = settings.getString(KNIME_IN_TYPE, DATA_FRAME);
-        if (DATA_FRAME.equals(type) || DATA_TABLE.equals(type)) {
+        if (isKnimeInType(type)) {
             setKnimeInType(type);
         } else {
             setKnimeInType(DATA_FRAME);
         }
 
+        setSendSparseMatrices(settings.getBoolean(SEND_SPARSE_MATRICES, false));
+        setSendMatrixColumns(settings.getBoolean(SEND_MATRIX_COLUMNS, false));
+        setSendUsedColumnsOnly(settings.getBoolean(SEND_USED_COLUMNS_ONLY, false));
+        setUseSerialization(settings.getBoolean(USE_SERIALIZATION, false));
+
+        final String[] columns = settings.getStringArray(STRING_ENCODING_COLUMNS, new String[0]);
+        final String[] encodings = settings.getStringArray(STRING_ENCODINGS, new String[0]);
+        final Map<String, StringEncoding> stringEncodings = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(columns.length, encodings.length); i++) {
+            try {
+                stringEncodings.put(columns[i], StringEncoding.valueOf(encodings[i]));
+            } catch (final IllegalArgumentException e) {
+                // drop unknown encodings, the column is then encoded automatically
+            }
+        }
+        setStringEncodings(stringEncodings);
+
         setOverwriteRHome(settings.getBoolean(OVERWRITE_R_HOME, false));
         setRHomePath(settings.getString(R_HOME_PATH, ""));
         setUseRHomePath(settings.getBoolean(USE_R_HOME_PATH, true));
@@ -231,6 +317,11 @@ public void loadSettings(final RSnippetSettings s) {
         setSendRowNames(s.getSendRowNames());
         setSendBatchSize(s.getSendBatchSize());
         setKnimeInType(s.getKnimeInType());
+        setSendSparseMatrices(s.getSendSparseMatrices());
+        setSendMatrixColumns(s.getSendMatrixColumns());
+        setSendUsedColumnsOnly(s.getSendUsedColumnsOnly());
+        setUseSerialization(s.getUseSerialization());
+        setStringEncodings(s.getStringEncodings());
         setRHomePath(s.getRHomePath());
         setOverwriteRHome(s.isOverwriteRHome());
         setRCondaVariableName(s.getRCondaVariableName());
@@ -299,6 +390,72 @@ public void setOutNonNumbersAsMissing(final boolean outNonNumbersAsMissing) {
         m_outNonNumbersAsMissing = outNonNumbersAsMissing;
     }
 
+    /**
+     * @return whether to send bit vector columns as sparse matrices.
+     * @since 5.12
+     */
+    public boolean getSendSparseMatrices() {
+        return m_sendSparseMatrices;
+    }
+
+    /**
+     * @param sendSparseMatrices whether to send bit vector columns as sparse matrices.
+     * @since 5.12
+     */
+    public void setSendSparseMatrices(final boolean sendSparseMatrices) {
+        m_sendSparseMatrices = sendSparseMatrices;
+    }
+
+    /**
+     * @return whether to send numeric collection columns of constant length as matrix columns.
+     * @since 5.12
+     */
+    public boolean getSendMatrixColumns() {
+        return m_sendMatrixColumns;
+    }
+
+    /**
+     * @param sendMatrixColumns whether to send numeric collection columns of constant length as matrix columns.
+     * @since 5.12
+     */
+    public void setSendMatrixColumns(final boolean sendMatrixColumns) {
+        m_sendMatrixColumns = sendMatrixColumns;
+    }
+
+    /**
+     * @return whether to send only the columns of the input table which the script uses.
+     * @since 5.12
+     */
+    public boolean getSendUsedColumnsOnly() {
+        return m_sendUsedColumnsOnly;
+    }
+
+    /**
+     * @param sendUsedColumnsOnly whether to send only the columns of the input table which the script uses, see
+     *            {@link ColumnUsageAnalyzer}.
+     * @since 5.12
+     */
+    public void setSendUsedColumnsOnly(final boolean sendUsedColumnsOnly) {
+        m_sendUsedColumnsOnly = sendUsedColumnsOnly;
+    }
+
+    /**
+     * @return whether to transfer tables in R's serialization format.
+     * @since 5.12
+     */
+    public boolean getUseSerialization() {
+        return m_useSerialization;
+    }
+
+    /**
+     * @param useSerialization whether to transfer tables in R's serialization format, see
+     *            {@link TransferEngine#SERIALIZATION}.
+     * @since 5.12
+     */
+    public void setUseSerialization(final boolean useSerialization) {
+        m_useSerialization = useSerialization;
+    }
+
     /**
      * @return whether to send row names with the input table.
      */
@@ -334,14 +491,19 @@ public int getSendBatchSize() {
     /**
      * Set the R type in which to provide the data from KNIME.
      *
-     * @param type either DATA_FRAME or DATA_TABLE.
+     * @param type either DATA_FRAME, DATA_TABLE or ARROW_TABLE.
      */
     public void setKnimeInType(final String type) {
-        if (DATA_FRAME.equals(type) || DATA_TABLE.equals(type)) {
+        if (isKnimeInType(type)) {
             m_knimeInType = type;
             return;
         }
-        throw new IllegalArgumentException("Type for \"knime.in\" should be either \"data.frame\" or \"data.table\".");
+        throw new IllegalArgumentException(
+            "Type for \"knime.in\" should be either \"data.frame\", \"data.table\" or \"arrow\".");
+    }
+
+    private static boolean isKnimeInType(final String type) {
+        return DATA_FRAME.equals(type) || DATA_TABLE.equals(type) || ARROW_TABLE.equals(type);
     }
 
     /**
@@ -351,6 +513,37 @@ public String getKnimeInType() {
         return m_knimeInType;
     }
 
+    /**
+     * Set how string columns are encoded in R, e.g. as factor or as character vector.
+     *
+     * @param stringEncodings encoding by column name, columns which are not contained are encoded automatically
+     *            depending on their number of distinct values.
+     * @since 5.12
+     */
+    public void setStringEncodings(final Map<String, StringEncoding> stringEncodings) {
+        m_stringEncodings = new LinkedHashMap<>(stringEncodings);
+    }
+
+    /**
+     * @return encoding of string columns by column name.
+     * @since 5.12
+     */
+    public Map<String, StringEncoding> getStringEncodings() {
+        return Collections.unmodifiableMap(m_stringEncodings);
+    }
+
+    /**
+     * @return settings for transferring input tables to R.
+     * @since 5.12
+     */
+    public RDataTransferSettings getDataTransferSettings() {
+        return new RDataTransferSettings().setBatchSize(getSendBatchSize()).setRType(getKnimeInType())
+            .setSendRowNames(getSendRowNames()).setSendSparseMatrices(m_sendSparseMatrices)
+            .setSendMatrixColumns(m_sendMatrixColumns)
+            .setStringEncodings(m_stringEncodings)
+            .setTransferEngine(m_useSerialization ? TransferEngine.SERIALIZATION : TransferEngine.BATCHES);
+    }
+
     /**
      * @param overwriteRHome the separateRHome to set
      * @since 4.2
@@ -0,0 +1,154 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.BorderFactory;
+import javax.swing.DefaultCellEditor;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.StringValue;
+import org.knime.r.controller.RDataTransferSettings.StringEncoding;
+
+/**
+ * A panel with a table of string columns and the encoding each of them is sent to R with, overriding the automatic
+ * choice between factor and character vector.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StringEncodingPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DefaultTableModel m_model = new DefaultTableModel(new Object[]{"Column", "Encoding"}, 0);
+
+    private final JTable m_table = new JTable(m_model);
+
+    private final JComboBox<String> m_columns = new JComboBox<>();
+
+    StringEncodingPanel() {
+        super(new BorderLayout());
+        setBorder(BorderFactory.createTitledBorder("String column encodings"));
+        setToolTipText("Columns not listed here are sent as factor or character vector depending on the number of "
+            + "distinct values.");
+
+        m_table.getColumnModel().getColumn(0).setCellEditor(new DefaultCellEditor(m_columns));
+        m_table.getColumnModel().getColumn(1)
+            .setCellEditor(new DefaultCellEditor(new JComboBox<>(StringEncoding.values())));
+        m_table.setFillsViewportHeight(true);
+        final JScrollPane scrollPane = new JScrollPane(m_table);
+        scrollPane.setPreferredSize(new Dimension(400, 100));
+        add(scrollPane, BorderLayout.CENTER);
+
+        final JButton add = new JButton("Add");
+        add.addActionListener(e -> {
+            final Object column = m_columns.getItemCount() > 0 ? m_columns.getItemAt(0) : "";
+            m_model.addRow(new Object[]{column, StringEncoding.FACTOR});
+        });
+        final JButton remove = new JButton("Remove");
+        remove.addActionListener(e -> {
+            stopEditing();
+            final int[] rows = m_table.getSelectedRows();
+            for (int i = rows.length - 1; i >= 0; i--) {
+                m_model.removeRow(rows[i]);
+            }
+        });
+        final JPanel buttons = new JPanel();
+        buttons.add(add);
+        buttons.add(remove);
+        add(buttons, BorderLayout.SOUTH);
+    }
+
+    /**
+     * @param spec spec of the input table offering the string columns to choose from, may be <code>null</code>
+     * @param encodings encoding of each column
+     */
+    void loadSettings(final DataTableSpec spec, final Map<String, StringEncoding> encodings) {
+        stopEditing();
+        m_columns.removeAllItems();
+        if (spec != null) {
+            for (final DataColumnSpec column : spec) {
+                if (column.getType().isCompatible(StringValue.class)) {
+                    m_columns.addItem(column.getName());
+                }
+            }
+        }
+        m_model.setRowCount(0);
+        encodings.forEach((column, encoding) -> m_model.addRow(new Object[]{column, encoding}));
+    }
+
+    /**
+     * @return encoding of each listed column, later rows win for duplicate columns
+     */
+    Map<String, StringEncoding> getStringEncodings() {
+        stopEditing();
+        final Map<String, StringEncoding> encodings = new LinkedHashMap<>();
+        for (int i = 0; i < m_model.getRowCount(); i++) {
+            final Object column = m_model.getValueAt(i, 0);
+            final Object encoding = m_model.getValueAt(i, 1);
+            if ((column != null) && !column.toString().isEmpty() && (encoding instanceof StringEncoding)) {
+                encodings.put(column.toString(), (StringEncoding)encoding);
+            }
+        }
+        return encodings;
+    }
+
+    private void stopEditing() {
+        if (m_table.isEditing()) {
+            m_table.getCellEditor().stopCellEditing();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.r.rserve.RConnectionFactory;
+
+/**
+ * Plans the number of rows per chunk when transferring tables between KNIME and R.
+ * <p>
+ * Chunks are limited by an estimate of their size in bytes, so that a single chunk stays well below the maximum message
+ * size of Rserve (see {@link RConnectionFactory#getMaxMessageSize()}), and by a maximum number of rows derived from the
+ * available heap. Within these limits the chunk size is adapted to the measured transfer time: chunks which are
+ * transferred very quickly are mostly per-chunk overhead and are grown, chunks which take long are shrunk to keep
+ * progress and cancellation responsive. Growing stops once it does not improve throughput anymore.
+ * <p>
+ * Instances are thread-safe, chunks may be planned on one thread and reported as done on another.
+ */
+final class ChunkPlanner {
+
+    /** Fraction of the maximum Rserve message size a chunk is planned to use, leaves room for protocol overhead */
+    private static final double MAX_MESSAGE_FRACTION = 0.4;
+
+    /** Chunks transferred faster than this are grown */
+    private static final long MIN_CHUNK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /** Chunks transferred slower than this are shrunk */
+    private static final long MAX_CHUNK_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** Growing the chunk size is stopped if throughput drops below this fraction of the best throughput */
+    private static final double MIN_THROUGHPUT_FRACTION = 0.8;
+
+    private final int m_maxRows;
+
+    private final long m_maxChunkBytes;
+
+    private long m_bytesPerRow;
+
+    private int m_rows;
+
+    private boolean m_grow = true;
+
+    private double m_bestThroughput = 0;
+
+    private int m_bestRows;
+
+    /**
+     * @param initialRows number of rows of the first chunk
+     * @param maxRows maximum number of rows of a chunk, e.g. limited by the available heap
+     * @param bytesPerRow estimated size of a row in bytes
+     */
+    ChunkPlanner(final int initialRows, final int maxRows, final long bytesPerRow) {
+        this(initialRows, maxRows, bytesPerRow, (long)(RConnectionFactory.getMaxMessageSize() * MAX_MESSAGE_FRACTION));
+    }
+
+    /**
+     * @param initialRows number of rows of the first chunk
+     * @param maxRows maximum number of rows of a chunk, e.g. limited by the available heap
+     * @param bytesPerRow estimated size of a row in bytes
+     * @param maxChunkBytes maximum estimated size of a chunk in bytes
+     */
+    ChunkPlanner(final int initialRows, final int maxRows, final long bytesPerRow, final long maxChunkBytes) {
+        m_maxRows = Math.max(1, maxRows);
+        m_maxChunkBytes = Math.max(1, maxChunkBytes);
+        m_bytesPerRow = Math.max(1, bytesPerRow);
+        m_rows = Math.max(1, initialRows);
+        m_bestRows = m_rows;
+    }
+
+    /**
+     * @return number of rows of the next chunk
+     */
+    synchronized int getChunkSize() {
+        return Math.min(m_rows, getMaxChunkSize());
+    }
+
+    /**
+     * @return the largest chunk size which stays within the limits for the current estimate of bytes per row
+     */
+    private int getMaxChunkSize() {
+        return (int)Math.max(1, Math.min(m_maxRows, m_maxChunkBytes / m_bytesPerRow));
+    }
+
+    /**
+     * @return maximum estimated size of a chunk in bytes
+     */
+    long getMaxChunkBytes() {
+        return m_maxChunkBytes;
+    }
+
+    /**
+     * Update the estimated size of a row, e.g. once the first chunk has been transferred.
+     *
+     * @param bytesPerRow estimated size of a row in bytes
+     */
+    synchronized void setBytesPerRow(final long bytesPerRow) {
+        m_bytesPerRow = Math.max(1, bytesPerRow);
+    }
+
+    /**
+     * Report a transferred chunk, adapts the size of the following chunks.
+     *
+     * @param rows number of rows of the chunk
+     * @param nanos time the transfer took in nanoseconds
+     */
+    synchronized void chunkDone(final int rows, final long nanos) {
+        final int planned = getChunkSize();
+        if (rows < planned) {
+            // remainder of the table, not representative
+            return;
+        }
+
+        final double throughput = rows / (double)Math.max(1, nanos);
+        if (throughput > m_bestThroughput) {
+            m_bestThroughput = throughput;
+            m_bestRows = rows;
+        } else if (m_grow && (rows > m_bestRows) && (throughput < (m_bestThroughput * MIN_THROUGHPUT_FRACTION))) {
+            // larger chunks did not pay off, go back to the best size found so far
+            m_grow = false;
+            m_rows = m_bestRows;
+            return;
+        }
+
+        if (nanos < MIN_CHUNK_NANOS && m_grow) {
+            m_rows = (int)Math.min(getMaxChunkSize(), 2L * planned);
+        } else if (nanos > MAX_CHUNK_NANOS) {
+            m_rows = Math.max(1, planned / 2);
+        } else {
+            m_rows = planned;
+        }
+    }
+}
@@ -55,6 +55,7 @@
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 import org.rosuda.REngine.REXPString;
+import org.rosuda.REngine.RList;
 
 /**
  * Class which wraps all R and Java code necessary to execute R code with correct errors (inkl. syntax errors), output
@@ -169,6 +170,62 @@ public class ConsoleLikeRExecutor {
     public static final String CAPTURE_OUTPUT_CLEANUP = //
         "rm(knime.tmp.ret,knime.output.ret,knime.stdout.con,knime.stderr.con,knime.stdout,knime.stderr)";
 
+    /**
+     * R code which installs a helper function in an attached environment named "knime:console", unless it is already
+     * installed in the current R session. The helper combines {@link #CAPTURE_OUTPUT_PREFIX}, {@link #CODE_EXECUTION},
+     * {@link #CAPTURE_OUTPUT_POSTFIX} and {@link #CAPTURE_OUTPUT_CLEANUP} into a single function call. Since the
+     * environment is attached rather than part of the global environment, it is neither removed when clearing the
+     * workspace nor saved with it.
+     *
+     * <pre>
+     * <code>
+     * if(!'knime:console' %in% search()) {
+     * 	assign('knime.console.exec', function(knime.tmp.script, knime.tmp.value) {
+     * 		# anonymous textConnections local to this function, see CAPTURE_OUTPUT_PREFIX
+     * 		knime.stdout.con <- textConnection(NULL, 'w', local=TRUE)
+     * 		knime.stderr.con <- textConnection(NULL, 'w', local=TRUE)
+     * 		sink(knime.stdout.con)
+     * 		sink(knime.stderr.con, type='message')
+     *
+     * 		# see CODE_EXECUTION, expressions are evaluated in the global environment
+     * 		knime.tmp.ret <- NULL
+     * 		printError <- function(e) message(paste('Error:', conditionMessage(e)))
+     * 		for(exp in tryCatch(parse(text=knime.tmp.script), error=printError)) {
+     * 			tryCatch(knime.tmp.ret <- withVisible(eval(exp, envir=globalenv())), error=printError)
+     * 			if(!is.null(knime.tmp.ret)) {
+     * 				if(knime.tmp.ret$visible) tryCatch(print(knime.tmp.ret$value), error=printError)
+     * 			}
+     * 		}
+     *
+     * 		# see CAPTURE_OUTPUT_POSTFIX, the value is only returned if requested
+     * 		sink()
+     * 		sink(type='message')
+     * 		knime.output.ret <- list(
+     * 			paste(textConnectionValue(knime.stdout.con), collapse='\n'),
+     * 			paste(textConnectionValue(knime.stderr.con), collapse='\n'),
+     * 			if(knime.tmp.value) knime.tmp.ret$value
+     * 		)
+     * 		close(knime.stdout.con)
+     * 		close(knime.stderr.con)
+     * 		knime.output.ret
+     * 	}, envir=attach(NULL, name='knime:console'))
+     * }
+     * </code>
+     * </pre>
+     */
+    public static final String CONSOLE_EXECUTION_SETUP = //
+        "if(!'knime:console'%in%search()){assign('knime.console.exec',function(knime.tmp.script,knime.tmp.value){"
+            + "knime.stdout.con<-textConnection(NULL,'w',local=TRUE);knime.stderr.con<-textConnection(NULL,'w',local=TRUE);"
+            + "sink(knime.stdout.con);sink(knime.stderr.con,type='message');knime.tmp.ret<-NULL;"
+            + "printError<-function(e) message(paste('" + ERROR_PREFIX + "',conditionMessage(e)))\n"
+            + "for(exp in tryCatch(parse(text=knime.tmp.script),error=printError)){"
+            + "tryCatch(knime.tmp.ret<-withVisible(eval(exp,envir=globalenv())),error=printError)\n"
+            + "if(!is.null(knime.tmp.ret)) {if(knime.tmp.ret$visible) tryCatch(print(knime.tmp.ret$value),error=printError)}}\n"
+            + "sink();sink(type='message')\n"
+            + "knime.output.ret<-list(paste(textConnectionValue(knime.stdout.con),collapse='\\n'),"
+            + "paste(textConnectionValue(knime.stderr.con),collapse='\\n'),if(knime.tmp.value) knime.tmp.ret$value)\n"
+            + "close(knime.stdout.con);close(knime.stderr.con)\n" + "knime.output.ret},envir=attach(NULL,name='knime:console'))}";
+
     private final RController m_controller;
 
     private String stdout = "";
@@ -247,6 +304,103 @@ public void executeIgnoreResult(final String script, final ExecutionMonitor prog
         m_controller.monitoredEval(CODE_EXECUTION, progress, false);
     }
 
+    /**
+     * Execute an R script with output capturing in a single evaluation, using the helper installed by
+     * {@link #CONSOLE_EXECUTION_SETUP}. This replaces the sequence of {@link #setupOutputCapturing(ExecutionMonitor)},
+     * {@link #execute(String, ExecutionMonitor)}, {@link #finishOutputCapturing(ExecutionMonitor)} and
+     * {@link #cleanup(ExecutionMonitor)}, which requires five round trips to Rserve.
+     *
+     * The captured output is appended to {@link #getStdOut()} and {@link #getStdErr()}.
+     *
+     * @param script The script to execute
+     * @param progress For monitoring progress.
+     * @return The result of the evaluation
+     * @throws RException
+     * @throws CanceledExecutionException
+     * @throws InterruptedException If the thread was interrupted while waiting for Rserve to evaluate R code.
+     */
+    public REXP executeCapturingOutput(final String script, final ExecutionMonitor progress)
+        throws RException, CanceledExecutionException, InterruptedException {
+        return executeCapturingOutput(script, true, progress);
+    }
+
+    /**
+     * Execute an R script with output capturing in a single evaluation, but prevent the result from being
+     * transferred.
+     *
+     * @param script The script to execute
+     * @param progress For monitoring progress.
+     * @throws RException
+     * @throws CanceledExecutionException
+     * @throws InterruptedException If the thread was interrupted while waiting for Rserve to evaluate R code.
+     * @see #executeCapturingOutput(String, ExecutionMonitor)
+     */
+    public void executeCapturingOutputIgnoreResult(final String script, final ExecutionMonitor progress)
+        throws RException, CanceledExecutionException, InterruptedException {
+        executeCapturingOutput(script, false, progress);
+    }
+
+    private REXP executeCapturingOutput(final String script, final boolean returnValue,
+        final ExecutionMonitor progress) throws RException, CanceledExecutionException, InterruptedException {
+        final REXP output = m_controller.monitoredEval(CONSOLE_EXECUTION_SETUP + "\nknime.console.exec("
+            + toRStringLiteral(script) + "," + (returnValue ? "TRUE" : "FALSE") + ")", progress, true);
+        try {
+            if ((output == null) || !output.isList() || (output.asList().size() != 3)) {
+                throw new RException("Received unexpected result from R while capturing output.", null);
+            }
+            final RList list = output.asList();
+            stdout += appendNewline(list.at(0).asString());
+            stderr += appendNewline(list.at(1).asString());
+            return list.at(2);
+        } catch (final REXPMismatchException e) {
+            throw new RException("Could not parse captured output.", e);
+        }
+    }
+
+    private static String appendNewline(final String s) {
+        return (s == null || s.isEmpty()) ? "" : s + "\n";
+    }
+
+    /**
+     * Create an R string literal for the given string. Non-ASCII characters are written as unicode escapes, so the
+     * literal does not depend on the encoding of the R session.
+     *
+     * @param s The string to quote
+     * @return R code for a character vector of length one containing <code>s</code>
+     */
+    static String toRStringLiteral(final String s) {
+        final StringBuilder b = new StringBuilder(s.length() + 16).append('"');
+        s.codePoints().forEach(c -> {
+            switch (c) {
+                case '\\':
+                    b.append("\\\\");
+                    break;
+                case '"':
+                    b.append("\\\"");
+                    break;
+                case '\n':
+                    b.append("\\n");
+                    break;
+                case '\r':
+                    b.append("\\r");
+                    break;
+                case '\t':
+                    b.append("\\t");
+                    break;
+                case 0:
+                    // R strings cannot contain nul characters
+                    break;
+                default:
+                    if ((c < 0x20) || (c > 0x7e)) {
+                        b.append((c > 0xffff) ? "\\U{" : "\\u{").append(Integer.toHexString(c)).append('}');
+                    } else {
+                        b.appendCodePoint(c);
+                    }
+            }
+        });
+        return b.append('"').toString();
+    }
+
     /**
      * Retrieve captured output from R.
      *
@@ -282,14 +436,16 @@ public void finishOutputCapturing(final ExecutionMonitor progress)
     }
 
     /**
-     * @return The output generated by the last {@link #execute(String, ExecutionMonitor)} call.
+     * @return The output captured by the last {@link #finishOutputCapturing(ExecutionMonitor)} call, or all output
+     *         captured by {@link #executeCapturingOutput(String, ExecutionMonitor)} calls.
      */
     public String getStdOut() {
         return stdout;
     }
 
     /**
-     * @return The error output generated by the last {@link #execute(String, ExecutionMonitor)} call.
+     * @return The error output captured by the last {@link #finishOutputCapturing(ExecutionMonitor)} call, or all
+     *         error output captured by {@link #executeCapturingOutput(String, ExecutionMonitor)} calls.
      */
     public String getStdErr() {
         return stderr;
@@ -259,8 +259,27 @@ void exportFlowVariables(Collection<FlowVariable> inFlowVariables, String name,
      * @throws CanceledExecutionException If execution was cancelled.
      * @throws InterruptedException If a thread was interrupted.
      */
-    void monitoredAssign(String symbol, BufferedDataTable value, ExecutionMonitor exec, int batchSize, String type,
-        boolean sendRowNames) throws RException, CanceledExecutionException, InterruptedException;
+    default void monitoredAssign(final String symbol, final BufferedDataTable value, final ExecutionMonitor exec,
+        final int batchSize, final String type, final boolean sendRowNames)
+        throws RException, CanceledExecutionException, InterruptedException {
+        monitoredAssign(symbol, value, exec,
+            new RDataTransferSettings().setBatchSize(batchSize).setRType(type).setSendRowNames(sendRowNames));
+    }
+
+    /**
+     * Assign a {@link BufferedDataTable} to a R variable in the current workspace.
+     *
+     * @param symbol R variable to assign to.
+     * @param value The table to assign to the variable.
+     * @param exec For monitoring the progress.
+     * @param settings Settings for the transfer, e.g. batch size and encoding of string columns.
+     * @throws RException If an R related error occurred during execution.
+     * @throws CanceledExecutionException If execution was cancelled.
+     * @throws InterruptedException If a thread was interrupted.
+     * @since 5.12
+     */
+    void monitoredAssign(String symbol, BufferedDataTable value, ExecutionMonitor exec, RDataTransferSettings settings)
+        throws RException, CanceledExecutionException, InterruptedException;
 
     /**
      * Import a BufferedDataTable from the R expression <code>string</code>.
@@ -276,6 +295,25 @@ void monitoredAssign(String symbol, BufferedDataTable value, ExecutionMonitor ex
     BufferedDataTable importBufferedDataTable(String string, boolean nonNumbersAsMissing, ExecutionContext exec)
         throws RException, CanceledExecutionException;
 
+    /**
+     * Import a BufferedDataTable from the R expression <code>string</code>.
+     *
+     * @param string R expression (variable for e.g.) to retrieve a data.frame which is then converted into a
+     *            BufferedDataTable.
+     * @param nonNumbersAsMissing Convert NaN and Infinity to {@link MissingCell}.
+     * @param settings Settings for the transfer, only the transfer engine is used.
+     * @param exec Execution context for creating the table and monitoring execution.
+     * @return The created BufferedDataTable.
+     * @throws RException
+     * @throws CanceledExecutionException
+     * @since 5.12
+     */
+    default BufferedDataTable importBufferedDataTable(final String string, final boolean nonNumbersAsMissing,
+        final RDataTransferSettings settings, final ExecutionContext exec)
+        throws RException, CanceledExecutionException {
+        return importBufferedDataTable(string, nonNumbersAsMissing, exec);
+    }
+
     /**
      * Get list of libraries imported in the current session and then delete those imports.
      *
@@ -305,7 +343,23 @@ BufferedDataTable importBufferedDataTable(String string, boolean nonNumbersAsMis
      * @throws RException
      * @throws CanceledExecutionException
      */
-    void importDataFromPorts(PortObject[] inData, ExecutionMonitor exec, final int batchSize, final String rType,
-        final boolean sendRowNames) throws RException, CanceledExecutionException;
+    default void importDataFromPorts(final PortObject[] inData, final ExecutionMonitor exec, final int batchSize,
+        final String rType, final boolean sendRowNames) throws RException, CanceledExecutionException {
+        importDataFromPorts(inData, exec,
+            new RDataTransferSettings().setBatchSize(batchSize).setRType(rType).setSendRowNames(sendRowNames));
+    }
+
+    /**
+     * Import RInputPorts and BufferedDataTables into the current R workspace.
+     *
+     * @param inData ports to import
+     * @param exec For monitoring the progess.
+     * @param settings Settings for transferring input tables to R.
+     * @throws RException
+     * @throws CanceledExecutionException
+     * @since 5.12
+     */
+    void importDataFromPorts(PortObject[] inData, ExecutionMonitor exec, RDataTransferSettings settings)
+        throws RException, CanceledExecutionException;
 
 }
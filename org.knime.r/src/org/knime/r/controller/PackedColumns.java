@@ -0,0 +1,262 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.rosuda.REngine.REXPRaw;
+
+/**
+ * Encodes the fixed-width columns of a batch of rows into a single little endian byte buffer, which is sent to R as
+ * one raw vector and decoded there with <code>readBin</code>.
+ * <p>
+ * Each column occupies a contiguous region of <code>rows * width</code> bytes, in the order of the columns. Values are
+ * written with absolute puts, so rows may be filled in any order and the buffer is reused for all batches of a
+ * transfer without allocating per row or per batch. Compared to one {@link org.rosuda.REngine.REXP} per column, this
+ * leaves Rserve a single array copy instead of encoding every value of every column again.
+ * <p>
+ * The byte layout of the values matches R's in-memory representation: logicals and integers are 32-bit integers with
+ * {@link Integer#MIN_VALUE} as NA, doubles are IEEE 754 doubles, 64-bit integers are the raw bits of bit64's
+ * <code>integer64</code>, which are read as doubles.
+ * <p>
+ * Instead of an array, the buffer may be a memory-mapped file, e.g. in <code>/dev/shm</code>, which R reads with
+ * <code>readBin</code> directly. The values are then not sent over the Rserve connection at all. The file has the
+ * same layout and is deleted on {@link #close()}.
+ */
+final class PackedColumns implements AutoCloseable {
+
+    /** Width of R logical values in bytes, which are stored as integers */
+    static final int LOGICAL_WIDTH = Integer.BYTES;
+
+    /** Width of R integer values in bytes */
+    static final int INTEGER_WIDTH = Integer.BYTES;
+
+    /** Width of R double and bit64 integer64 values in bytes */
+    static final int DOUBLE_WIDTH = Double.BYTES;
+
+    private final int m_rows;
+
+    /** Byte offset of the first value of each column, -1 for columns which are not packed */
+    private final int[] m_offsets;
+
+    private final int m_size;
+
+    /** Backing array, <code>null</code> if the buffer is a memory-mapped file */
+    private final byte[] m_bytes;
+
+    /** Memory-mapped file, <code>null</code> if the buffer is an array or empty */
+    private final File m_file;
+
+    private final ByteBuffer m_buffer;
+
+    /**
+     * @param rows number of rows of a batch
+     * @param widths width in bytes of the values of each column, 0 for columns which are not packed
+     * @throws IllegalArgumentException if the batch does not fit into a single array
+     */
+    PackedColumns(final int rows, final int[] widths) {
+        m_rows = rows;
+        m_offsets = new int[widths.length];
+        m_size = computeOffsets(rows, widths, m_offsets);
+        m_bytes = new byte[m_size];
+        m_file = null;
+        m_buffer = ByteBuffer.wrap(m_bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Create packed columns backed by a memory-mapped file.
+     *
+     * @param rows number of rows of a batch
+     * @param widths width in bytes of the values of each column, 0 for columns which are not packed
+     * @param directory directory to create the file in
+     * @throws IllegalArgumentException if the batch does not fit into a single mapping
+     * @throws IOException if the file could not be created or mapped
+     */
+    PackedColumns(final int rows, final int[] widths, final File directory) throws IOException {
+        m_rows = rows;
+        m_offsets = new int[widths.length];
+        m_size = computeOffsets(rows, widths, m_offsets);
+        m_bytes = null;
+        if (m_size == 0) {
+            m_file = null;
+            m_buffer = ByteBuffer.allocate(0);
+            return;
+        }
+        if (getUsableSpace(directory) < m_size) {
+            // writing to a mapping without backing space fails with an InternalError or SIGBUS
+            throw new IOException("Not enough space for " + m_size + " bytes in \"" + directory + "\".");
+        }
+        m_file = File.createTempFile("knime-r-batch-", ".bin", directory);
+        try (final FileChannel channel =
+            FileChannel.open(m_file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            m_buffer = channel.map(MapMode.READ_WRITE, 0, m_size).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(m_file.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * @param directory a directory
+     * @return bytes available in the file store of the directory, 0 if unknown
+     */
+    static long getUsableSpace(final File directory) {
+        try {
+            return Files.getFileStore(directory.toPath()).getUsableSpace();
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    /** @return size of the buffer in bytes */
+    private static int computeOffsets(final int rows, final int[] widths, final int[] offsets) {
+        long size = 0;
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] > 0) {
+                offsets[i] = (int)Math.min(size, Integer.MAX_VALUE);
+                size += (long)widths[i] * rows;
+            } else {
+                offsets[i] = -1;
+            }
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A batch of " + rows + " rows is too large to be sent to R.");
+        }
+        return (int)size;
+    }
+
+    /**
+     * @return whether no column is packed
+     */
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /**
+     * @return the memory-mapped file holding the values, <code>null</code> if they are held in an array or no column
+     *         is packed
+     */
+    File getFile() {
+        return m_file;
+    }
+
+    /**
+     * @param column index of the column
+     * @return whether the column is packed
+     */
+    boolean isPacked(final int column) {
+        return m_offsets[column] >= 0;
+    }
+
+    /**
+     * @return number of rows reserved for each column
+     */
+    int getRows() {
+        return m_rows;
+    }
+
+    /**
+     * Set a logical or integer value.
+     *
+     * @param column index of the column
+     * @param row index of the row in the batch
+     * @param value the value, {@link Integer#MIN_VALUE} for NA
+     */
+    void putInt(final int column, final int row, final int value) {
+        m_buffer.putInt(m_offsets[column] + (row * INTEGER_WIDTH), value);
+    }
+
+    /**
+     * Set a bit64 integer64 value.
+     *
+     * @param column index of the column
+     * @param row index of the row in the batch
+     * @param value the value, {@link Long#MIN_VALUE} for NA
+     */
+    void putLong(final int column, final int row, final long value) {
+        m_buffer.putLong(m_offsets[column] + (row * DOUBLE_WIDTH), value);
+    }
+
+    /**
+     * Set a double value.
+     *
+     * @param column index of the column
+     * @param row index of the row in the batch
+     * @param value the value, R's NA double for NA
+     */
+    void putDouble(final int column, final int row, final double value) {
+        // raw bits to keep the payload of R's NA, which distinguishes it from NaN
+        m_buffer.putLong(m_offsets[column] + (row * DOUBLE_WIDTH), Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @return the raw vector wrapping the buffer, valid until the buffer is filled with the next batch
+     * @throws IllegalStateException if the buffer is a memory-mapped file
+     */
+    REXPRaw toREXP() {
+        if (m_bytes == null) {
+            throw new IllegalStateException("Packed columns are held in a memory-mapped file.");
+        }
+        return new REXPRaw(m_bytes);
+    }
+
+    /**
+     * Delete the memory-mapped file, if any. Its memory is released once the mapping is garbage collected.
+     */
+    @Override
+    public void close() {
+        if ((m_file != null) && !m_file.delete() && m_file.exists()) {
+            m_file.deleteOnExit();
+        }
+    }
+}
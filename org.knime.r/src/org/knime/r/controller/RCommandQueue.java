@@ -224,32 +224,12 @@ public void run() {
                         if (rCmd.isShowInConsole()) {
                             final ConsoleLikeRExecutor exec = new ConsoleLikeRExecutor(m_controller);
                             try {
-                                exec.setupOutputCapturing(sub.createSubProgress(0.2));
-                            } catch (final RException e) {
-                                m_listeners.stream().forEach((l) -> l.onCommandExecutionError(
-                                    new RException("Could not capture output of command.", e)));
-                            }
-
-                            try {
-                                ret = exec.execute(rCmd.getCommand(), sub.createSubProgress(0.5));
+                                // output capturing, execution and cleanup in a single evaluation
+                                ret = exec.executeCapturingOutput(rCmd.getCommand(), sub.createSubProgress(0.9));
                             } catch (final RException e) {
                                 m_listeners.stream().forEach((l) -> l.onCommandExecutionError(e));
                             }
 
-                            try {
-                                exec.finishOutputCapturing(sub.createSubProgress(0.2));
-                            } catch (final RException e) {
-                                m_listeners.stream().forEach((l) -> l.onCommandExecutionError(
-                                    new RException("Could not capture output of command.", e)));
-                            }
-
-                            try {
-                                exec.cleanup(sub.createSubProgress(0.1));
-                            } catch (final RException e) {
-                                m_listeners.stream().forEach((l) -> l.onCommandExecutionError(
-                                    new RException("Could not cleanup after command execution.", e)));
-                            }
-
                             // complete Future to notify all threads waiting on
                             // it
                             rCmd.complete(ret);
@@ -44,26 +44,49 @@
  */
 package org.knime.r.controller;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -74,12 +97,14 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
-import org.knime.core.data.DataValue;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
 import org.knime.core.data.MissingCell;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.StringValue;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.ListCell;
@@ -87,7 +112,19 @@
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.time.duration.DurationCellFactory;
+import org.knime.core.data.time.duration.DurationValue;
+import org.knime.core.data.time.localdate.LocalDateCellFactory;
+import org.knime.core.data.time.localdate.LocalDateValue;
+import org.knime.core.data.time.localdatetime.LocalDateTimeCellFactory;
+import org.knime.core.data.time.localdatetime.LocalDateTimeValue;
+import org.knime.core.data.time.zoneddatetime.ZonedDateTimeCellFactory;
+import org.knime.core.data.time.zoneddatetime.ZonedDateTimeValue;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bitvector.SparseBitVectorCell;
+import org.knime.core.data.vector.bitvector.SparseBitVectorCellFactory;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
@@ -98,19 +135,22 @@
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.util.FileUtil;
 import org.knime.core.util.ThreadPool;
 import org.knime.core.util.ThreadUtils;
+import org.knime.core.util.UniqueNameGenerator;
 import org.knime.ext.r.bin.RBinUtil;
 import org.knime.ext.r.bin.RBinUtil.InvalidRHomeException;
 import org.knime.ext.r.bin.preferences.DefaultRPreferenceProvider;
 import org.knime.ext.r.bin.preferences.RPreferenceInitializer;
 import org.knime.ext.r.bin.preferences.RPreferenceProvider;
 import org.knime.ext.r.node.local.port.RPortObject;
+import org.knime.r.controller.RDataTransferSettings.StringEncoding;
+import org.knime.r.controller.RDataTransferSettings.TransferEngine;
 import org.knime.r.rserve.RConnectionFactory;
 import org.knime.r.rserve.RConnectionFactory.RConnectionResource;
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPDouble;
-import org.rosuda.REngine.REXPFactor;
 import org.rosuda.REngine.REXPGenericVector;
 import org.rosuda.REngine.REXPInteger;
 import org.rosuda.REngine.REXPList;
@@ -212,7 +252,25 @@ public boolean isUsingNodeContext() {
 
     @Override
     public void initialize() throws RException {
-        initR();
+        try {
+            initR(null);
+        } catch (final CanceledExecutionException e) {
+            // without an execution monitor, only an interrupt of the waiting thread cancels
+            throw new RException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Initialize everything which may fail, see {@link #initialize()}. If the maximum number of R processes is running,
+     * waits for one to become available.
+     *
+     * @param exec for reporting and cancelling the wait for a free R process
+     * @throws RException
+     * @throws CanceledExecutionException if canceled or interrupted while waiting for a free R process
+     * @since 5.12
+     */
+    public void initialize(final ExecutionMonitor exec) throws RException, CanceledExecutionException {
+        initR(exec);
     }
 
     /**
@@ -252,7 +310,7 @@ public synchronized void terminateAndRelaunch() {
         terminateRProcess();
 
         try {
-            m_connection = initRConnection(m_preferences);
+            m_connection = initRConnection(m_preferences, null);
             m_initialized = ((m_connection != null) && m_connection.get().isConnected());
             LOGGER.debug("Recovered with a new R process");
         } catch (final Exception e) {
@@ -286,9 +344,10 @@ public synchronized void checkConnectionAndRecover() {
         terminateAndRelaunch();
     }
 
-    /** Create and initialize a R connection */
-    private static RConnectionResource initRConnection(final RPreferenceProvider preferences) throws RserveException, IOException {
-        final RConnectionResource resource = RConnectionFactory.createConnection(preferences);
+    /** Create and initialize a R connection, <code>exec</code> may be <code>null</code> */
+    private static RConnectionResource initRConnection(final RPreferenceProvider preferences,
+        final ExecutionMonitor exec) throws RserveException, IOException, CanceledExecutionException {
+        final RConnectionResource resource = RConnectionFactory.createConnection(preferences, exec);
 
         if (!resource.get().isConnected()) {
             throw new IOException("Could not initialize RController: Resource was not connected.");
@@ -299,9 +358,10 @@ private static RConnectionResource initRConnection(final RPreferenceProvider pre
     /**
      * Initialize the underlying REngine with a backend.
      *
+     * @param exec for reporting and cancelling the wait for a free R process, may be <code>null</code>
      * @throws RException
      */
-    private void initR() throws RException {
+    private void initR(final ExecutionMonitor exec) throws RException, CanceledExecutionException {
         try {
             RBinUtil.checkRHome(m_preferences);
 
@@ -327,7 +387,7 @@ private void initR() throws RException {
             }
 
 
-            m_connection = initRConnection(m_preferences);
+            m_connection = initRConnection(m_preferences, exec);
         } catch (final InvalidRHomeException ex) {
             throw new RException("R Home \"" + m_preferences.getRHome() + "\" is invalid.", ex);
         } catch (final RserveException | IOException e) {
@@ -466,8 +526,8 @@ public void exportFlowVariables(final Collection<FlowVariable> inFlowVariables,
     }
 
     @Override
-    public void importDataFromPorts(final PortObject[] inData, final ExecutionMonitor exec, final int batchSize,
-        final String rType, final boolean sendRowNames) throws RException, CanceledExecutionException {
+    public void importDataFromPorts(final PortObject[] inData, final ExecutionMonitor exec,
+        final RDataTransferSettings settings) throws RException, CanceledExecutionException {
         // load workspaces from the input ports into the current R session
         for (final PortObject port : inData) {
             if (port instanceof RPortObject) {
@@ -479,8 +539,7 @@ public void importDataFromPorts(final PortObject[] inData, final ExecutionMonito
             } else if (port instanceof BufferedDataTable) {
                 exec.setMessage("Exporting data to R");
                 // write all input data to the R session
-                monitoredAssign("knime.in", (BufferedDataTable)port, exec.createSubProgress(0.5), batchSize, rType,
-                    sendRowNames);
+                monitoredAssign("knime.in", (BufferedDataTable)port, exec.createSubProgress(0.5), settings);
             }
         }
 
@@ -537,6 +596,16 @@ private static byte exportBooleanValue(final DataCell cell) {
         return ((BooleanValue)cell).getBooleanValue() ? REXPLogical.TRUE : REXPLogical.FALSE;
     }
 
+    /**
+     * Create R's integer representation of a logical for a BooleanValue, {@link REXPInteger#NA} if missing.
+     */
+    private static int exportLogicalValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return REXPInteger.NA;
+        }
+        return ((BooleanValue)cell).getBooleanValue() ? 1 : 0;
+    }
+
     /**
      * Create an int for a IntValue or create a {@link REXPInteger#NA}.
      */
@@ -547,6 +616,16 @@ private static int exportIntValue(final DataCell cell) {
         return ((IntValue)cell).getIntValue();
     }
 
+    /**
+     * Create a long for a LongValue or {@link #INTEGER64_NA}.
+     */
+    private static long exportLongValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return INTEGER64_NA;
+        }
+        return ((LongValue)cell).getLongValue();
+    }
+
     /**
      * Create a double for a DoubleValue or {@link REXPDouble#NA}.
      */
@@ -557,6 +636,51 @@ private static double exportDoubleValue(final DataCell cell) {
         return ((DoubleValue)cell).getDoubleValue();
     }
 
+    /**
+     * Create the number of days since 1970-01-01 (R Date) for a LocalDateValue or {@link REXPDouble#NA}.
+     */
+    private static double exportLocalDateValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return REXPDouble.NA;
+        }
+        return ((LocalDateValue)cell).getLocalDate().toEpochDay();
+    }
+
+    /**
+     * Create the number of seconds since 1970-01-01 00:00 UTC (R POSIXct in time zone UTC) for a LocalDateTimeValue or
+     * {@link REXPDouble#NA}.
+     */
+    private static double exportLocalDateTimeValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return REXPDouble.NA;
+        }
+        final LocalDateTime value = ((LocalDateTimeValue)cell).getLocalDateTime();
+        return value.toEpochSecond(ZoneOffset.UTC) + (value.getNano() / 1e9);
+    }
+
+    /**
+     * Create the number of seconds since 1970-01-01 00:00 UTC (R POSIXct) for a ZonedDateTimeValue or
+     * {@link REXPDouble#NA}.
+     */
+    private static double exportZonedDateTimeValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return REXPDouble.NA;
+        }
+        final ZonedDateTime value = ((ZonedDateTimeValue)cell).getZonedDateTime();
+        return value.toEpochSecond() + (value.getNano() / 1e9);
+    }
+
+    /**
+     * Create the number of seconds (R difftime with units "secs") for a DurationValue or {@link REXPDouble#NA}.
+     */
+    private static double exportDurationValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return REXPDouble.NA;
+        }
+        final Duration value = ((DurationValue)cell).getDuration();
+        return value.getSeconds() + (value.getNano() / 1e9);
+    }
+
     /**
      * Create a String for a StringValue or null.
      */
@@ -568,30 +692,57 @@ private static String exportStringValue(final DataCell cell) {
         }
     }
 
+    /**
+     * @return number of bytes of a string in an Rserve message, its UTF-8 encoding and the terminating zero
+     */
+    private static long getEncodedLength(final String value) {
+        if (value == null) {
+            return 2; // NA
+        }
+        long length = 1;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            // surrogate pairs count 2 + 2 bytes, which matches their 4 byte encoding
+            length += c < 0x80 ? 1 : (c < 0x800 ? 2 : 3);
+        }
+        return length;
+    }
+
     @Override
     public BufferedDataTable importBufferedDataTable(final String varName, final boolean nonNumbersAsMissing,
         final ExecutionContext exec) throws RException, CanceledExecutionException {
 
-        final REXP typeRexp = eval("class(" + varName + ")", true);
-        if (typeRexp.isNull()) {
+        // Get type, column names, row count (negative for automatic compact 1:n row names), which columns are
+        // bit64 integer64, the sparse matrices named <varName>.matrix.<column> with a row per row of the table and
+        // whether the row names are integers in a single call. Matrices, lists and Arrow Tables or RecordBatches are
+        // converted to data.frame first.
+        final String sparsePrefix = varName + ".matrix.";
+        final REXP metaRexp = eval("if(is.null(" + varName + ")){NULL}else{if(inherits(" + varName
+            + ",'ArrowTabular')){" + varName + "<-as.data.frame(" + varName + ");class(" + varName
+            + ")<-'data.frame'}else if(class(" + varName + ")[1]%in%c('matrix','list')){" + varName + "<-data.frame("
+            + varName + ")};list(class(" + varName
+            + ")[1],as.character(colnames(" + varName + ")),.row_names_info(" + varName + "),as.integer(vapply("
+            + varName + ",function(knime.c)inherits(knime.c,'integer64'),TRUE)),as.character(Filter(function(knime.n)"
+            + "startsWith(knime.n,'" + sparsePrefix + "')&&methods::is(get(knime.n),'sparseMatrix')&&"
+            + "nrow(get(knime.n))==nrow(" + varName + "),ls())),is.integer(.row_names_info(" + varName
+            + ",0L)))}", true);
+        if (metaRexp.isNull()) {
             // a variable with this name does not exist
             final BufferedDataContainer cont = exec.createDataContainer(new DataTableSpec());
             cont.close();
             return cont.getTable();
         }
 
-        boolean isDataTable = false;
         try {
-            final String type = typeRexp.asString();
+            final RList meta = metaRexp.asList();
+            final String type = meta.at(0).asString();
             if (type.equals("data.table")) {
-                isDataTable = true;
                 LOGGER.debug("Using experimental support for receiving data as \"data.table\".");
-            } else if (type.equals("matrix") || type.equals("list")) {
-                eval(varName + "<-data.frame(" + varName + ")", false);
             } else if (!type.equals("data.frame")) {
                 throw new RException(
                     "CODING PROBLEM\timportBufferedDataTable(): Supporting only 'data.frame', "
-                        + "'data.table', 'matrix' and 'list' for type of \"" + varName + "\" (was '" + type + "').",
+                        + "'data.table', 'matrix', 'list' and Arrow Tables for type of \"" + varName + "\" (was '" + type
+                        + "').",
                     null);
             }
         } catch (final REXPMismatchException e) {
@@ -601,170 +752,569 @@ public BufferedDataTable importBufferedDataTable(final String varName, final boo
         final ThreadPool threadPool = ThreadPool.currentPool();
 
         try {
-            // Get column names
-            final String[] columnNames = eval("colnames(" + varName + ")", true).asStrings();
+            final RList meta = metaRexp.asList();
+            final String[] dataColumnNames = meta.at(1).asStrings();
+            final String[] sparseMatrices = meta.at(4).asStrings();
+
+            // Sparse matrices are appended as bit vector columns named after the matrix
+            final String[] columnNames = Arrays.copyOf(dataColumnNames, dataColumnNames.length + sparseMatrices.length);
+            final UniqueNameGenerator nameGenerator =
+                new UniqueNameGenerator(new HashSet<>(Arrays.asList(dataColumnNames)));
+            for (int i = 0; i < sparseMatrices.length; ++i) {
+                columnNames[dataColumnNames.length + i] =
+                    nameGenerator.newName(sparseMatrices[i].substring(sparsePrefix.length()));
+            }
             final int numColumns = columnNames.length;
 
-            // Get row count (and row names if not automatic compact 1:n storage)
-            final REXP numRowsRexp = getREngine().eval(".row_names_info(" + varName + ")");
-            final boolean compactRowNames = numRowsRexp.asInteger() < 0;
-            if (!compactRowNames) {
-                eval("knime.out.row.names<-attr(" + varName + ",\"row.names\")", false);
+            final boolean compactRowNames = meta.at(2).asInteger() < 0;
+            // integer row names, e.g. of a subset of rows, are sent as integers instead of strings
+            final boolean integerRowNames = meta.at(5).asInteger() == 1;
+            final int numRows = Math.abs(meta.at(2).asInteger());
+            final boolean[] integer64Columns = new boolean[numColumns];
+            final int[] isInteger64 = meta.at(3).asIntegers();
+            for (int i = 0; i < Math.min(numColumns, isInteger64.length); ++i) {
+                integer64Columns[i] = isInteger64[i] == 1;
             }
-            final int numRows = Math.abs(numRowsRexp.asInteger());
             int transferredRows = 0;
 
+            // Rows per chunk, limited by the size of a single response and the memory of the chunks in the pipeline.
+            // The values of a column are released as soon as it is converted, so a chunk is held about twice: as
+            // received values while converting and as cells. Assumes 8 bytes per value until the first chunk has
+            // been received.
+            final ChunkPlanner planner = new ChunkPlanner(IMPORT_CHUNK_ROWS,
+                (int)Math.min(Integer.MAX_VALUE,
+                    getTransferMemoryBudget() / (2L * Math.max(1, numColumns) * IMPORT_BYTES_PER_CELL)),
+                (8L * numColumns) + (compactRowNames ? 0 : ROW_NAME_BYTES));
+
             final DataColumnSpec[] colSpecs = new DataColumnSpec[numColumns];
             BufferedDataContainer cont = null;
 
-            final DataCell[][] columns = new DataCell[numColumns][];
-            @SuppressWarnings("unchecked")
-            final Future<Void>[] futures = new Future[numColumns];
+            // Chunks which are converted or written while the next chunk is fetched
+            final ArrayDeque<ImportChunk> pendingChunks = new ArrayDeque<>();
             Future<Void> addRowsFuture = null;
 
-            while (transferredRows < numRows) {
-                // this is NOT the chunk size value as per config dialog as receiving data happens
-                // in chunks _and_ on columns
-                final int remRows = numRows - transferredRows;
-                int rowsThisBatch = Math.min(50000, remRows);
-                if ((remRows - rowsThisBatch) < 10000) {
-                    // avoid final chunk being smaller than 10k rows
-                    rowsThisBatch = remRows;
-                }
-
-                // Expression for range of rows to transfer e.g.: 1:10000
-                final String rowRangeExpr = (transferredRows + 1) + ":" + (transferredRows + rowsThisBatch);
+            try {
+                while (transferredRows < numRows) {
+                    // this is NOT the chunk size value as per config dialog as receiving data happens
+                    // in chunks _and_ on columns
+                    final int remRows = numRows - transferredRows;
+                    final int rowsPerChunk = planner.getChunkSize();
+                    int rowsThisBatch = Math.min(rowsPerChunk, remRows);
+                    if ((remRows - rowsThisBatch) < (rowsPerChunk / 5)) {
+                        // avoid final chunk being much smaller than the others
+                        rowsThisBatch = remRows;
+                    }
 
-                for (int i = 0; i < numColumns; ++i) {
                     exec.checkCanceled();
-                    exec.setProgress((transferredRows / (double)numRows)
-                        + ((rowsThisBatch / (double)numRows) * (i / (double)numColumns)));
-
-                    final int rIndex = i + 1; // R starts indices at 1
-                    final String expr = varName + ((isDataTable) ? "[[" + rIndex + "]][" + rowRangeExpr + "]"
-                        : "[" + rowRangeExpr + "," + rIndex + "]");
-                    final REXP column = eval(expr, true);
-
+                    exec.setProgress(transferredRows / (double)numRows);
+
+                    // Stage 1: fetch the slices of all columns and the row names of this chunk in a single call, e.g.
+                    // for 1:10000, while previous chunks are converted and written
+                    final long fetchStart = System.nanoTime();
+                    final RList data = eval(createChunkExpression(varName, transferredRows + 1,
+                        transferredRows + rowsThisBatch, !compactRowNames, integerRowNames, sparseMatrices), true)
+                            .asList();
                     if (transferredRows == 0) {
-                        // Create column spec for this column
-                       colSpecs[i] = new DataColumnSpecCreator(columnNames[i], getColType(column)).createSpec();
+                        planner.setBytesPerRow(estimateBytesPerRow(data, rowsThisBatch));
                     }
+                    planner.chunkDone(rowsThisBatch, System.nanoTime() - fetchStart);
+                    final ImportChunk chunk =
+                        new ImportChunk(compactRowNames ? null : data.at(numColumns), transferredRows, rowsThisBatch,
+                            numColumns);
 
-                    if (addRowsFuture != null) {
-                        try {
-                            addRowsFuture.get();
-                        } catch (InterruptedException | ExecutionException e) {
-                            throw new RuntimeException("Error while adding rows to table.", e);
+                    if (transferredRows == 0) {
+                        // Create column specs and the container for the first chunk of rows
+                        for (int i = 0; i < numColumns; ++i) {
+                            final DataType type = integer64Columns[i] ? LongCell.TYPE : getColType(data.at(i));
+                            colSpecs[i] = new DataColumnSpecCreator(columnNames[i], type).createSpec();
                         }
+                        cont = exec.createDataContainer(new DataTableSpec(colSpecs));
                     }
 
-                    // Convert values
-                    if ((columns[i] == null) || (columns[i].length < rowsThisBatch)) {
-                        // Only reallocate the DataCell buffer if insufficient size.
-                        columns[i] = new DataCell[rowsThisBatch];
+                    // Stage 2: convert the values in parallel. The chunk does not keep the received values, each column
+                    // can be collected once it is converted.
+                    chunk.convert(data, threadPool, nonNumbersAsMissing, integer64Columns);
+                    pendingChunks.add(chunk);
+
+                    // Stage 3: add converted chunks to the table in order, one at a time. The number of chunks kept in
+                    // memory at the same time is limited by the memory budget.
+                    final long chunkBytes = (long)rowsThisBatch * Math.max(1, numColumns) * IMPORT_BYTES_PER_CELL;
+                    final int pipelineDepth = (int)Math.max(0,
+                        Math.min(IMPORT_PIPELINE_DEPTH, (getTransferMemoryBudget() / Math.max(1, chunkBytes)) - 2));
+                    while (pendingChunks.size() > pipelineDepth) {
+                        final ImportChunk converted = pendingChunks.removeFirst();
+                        converted.awaitConversion();
+                        awaitRowsAdded(addRowsFuture);
+                        addRowsFuture = converted.addRows(cont, compactRowNames, threadPool);
                     }
 
-                    if (column.isNull()) {
-                        Arrays.fill(columns[i], DataType.getMissingCell());
-                    } else {
-                        if (column.isList()) {
-                            final DataCell[] list = columns[i];
-                            int row = 0;
-                            for (final Object o : column.asList()) {
-                                final REXP rexp = (REXP)o;
-                                if (rexp.isNull()) {
-                                    list[row] = DataType.getMissingCell();
-                                } else {
-                                    if (rexp.isVector()) {
-                                        final REXPVector colValue = (REXPVector)rexp;
-                                        final DataCell[] listCells = new DataCell[colValue.length()];
-                                        importCells(colValue, listCells, nonNumbersAsMissing);
-                                        list[row] = CollectionCellFactory.createListCell(Arrays.asList(listCells));
-                                    } else {
-                                        LOGGER.warn(
-                                            "Expected Vector type for list cell. Inserting missing cell instead.");
-                                        list[row] = DataType.getMissingCell();
-                                    }
-                                }
-                                ++row;
-                            }
-                        } else {
-                            final DataCell[] columnCells = columns[i];
-                            final Callable<Void> callable = ThreadUtils.callableWithContext(() -> {
-                                importCells(column, columnCells, nonNumbersAsMissing);
-                                return null;
-                            });
-                            futures[i] =
-                                threadPool != null ? threadPool.enqueue(callable) : R_THREAD_POOL.submit(callable);
-                        }
-                    }
+                    transferredRows += rowsThisBatch;
+                }
+
+                while (!pendingChunks.isEmpty()) {
+                    final ImportChunk converted = pendingChunks.removeFirst();
+                    converted.awaitConversion();
+                    awaitRowsAdded(addRowsFuture);
+                    addRowsFuture = converted.addRows(cont, compactRowNames, threadPool);
+                }
+                awaitRowsAdded(addRowsFuture);
+            } finally {
+                // stop remaining work if the import failed or was cancelled
+                pendingChunks.forEach(ImportChunk::cancel);
+                if (addRowsFuture != null) {
+                    addRowsFuture.cancel(true);
+                }
+            }
+
+            // can only happen if knime.out is an empty data.frame/table
+            if (cont == null) {
+                assert transferredRows == 0 : "No output container was initialized, although knime.out contained data";
+                // create container and outspec for the first batch of rows
+                final RList data = getREngine().get(varName, null, true).asList();
+                cont = exec.createDataContainer(createSpecFromEmptyDataFrame(dataColumnNames, data));
+            }
+            cont.close();
+            return cont.getTable();
+        } catch (final REXPMismatchException e) {
+            throw new RException("Could not parse REXP.", e);
+        } catch (final REngineException e) {
+            throw new RException("Could not get value of " + varName + " from workspace.", e);
+        }
+    }
+
+    @Override
+    public BufferedDataTable importBufferedDataTable(final String varName, final boolean nonNumbersAsMissing,
+        final RDataTransferSettings settings, final ExecutionContext exec)
+        throws RException, CanceledExecutionException {
+        if (settings.getTransferEngine() == TransferEngine.SERIALIZATION) {
+            // Only plain atomic columns and factors, other tables (and empty ones) are received in chunks
+            final String v = varName;
+            final REXP serializable = eval("as.integer(exists('" + v + "')&&is.data.frame(" + v + ")&&nrow(" + v
+                + ")>0&&!any(startsWith(ls(),'" + v + ".matrix.'))&&all(vapply(" + v + ",function(knime.c)"
+                + "is.factor(knime.c)||(is.null(oldClass(knime.c))&&is.null(dim(knime.c))&&typeof(knime.c)%in%"
+                + "c('logical','integer','double','character')),TRUE)))", true);
+            try {
+                if (serializable.asInteger() == 1) {
+                    return importSerialized(varName, nonNumbersAsMissing, exec);
                 }
+            } catch (final REXPMismatchException e) {
+                throw new RException("Could not check the columns of " + varName + ".", e);
+            }
+            LOGGER.debug("\"" + varName + "\" cannot be received in R serialization format, receiving it in chunks.");
+        }
+        return importBufferedDataTable(varName, nonNumbersAsMissing, exec);
+    }
+
+    /**
+     * Receive a data.frame with logical, integer, double, character and factor columns and at least one row in
+     * chunks of rows, each serialized by R in a single call and read into cells directly.
+     */
+    private BufferedDataTable importSerialized(final String varName, final boolean nonNumbersAsMissing,
+        final ExecutionContext exec) throws RException, CanceledExecutionException {
+        final int numRows;
+        final String[] columnNames;
+        final boolean compactRowNames;
+        try {
+            final RList meta = eval("list(nrow(" + varName + "),as.character(names(" + varName
+                + ")),as.integer(.row_names_info(" + varName + ")<0L))", true).asList();
+            numRows = meta.at(0).asInteger();
+            columnNames = meta.at(1).asStrings();
+            compactRowNames = meta.at(2).asInteger() == 1;
+        } catch (final REXPMismatchException e) {
+            throw new RException("Could not parse REXP.", e);
+        }
+        final int numColumns = columnNames.length;
+
+        final ChunkPlanner planner = new ChunkPlanner(IMPORT_CHUNK_ROWS,
+            (int)Math.min(Integer.MAX_VALUE,
+                getTransferMemoryBudget() / (2L * Math.max(1, numColumns) * IMPORT_BYTES_PER_CELL)),
+            (8L * numColumns) + (compactRowNames ? 0 : ROW_NAME_BYTES));
+        BufferedDataContainer cont = null;
+        int transferredRows = 0;
+        try {
+            while (transferredRows < numRows) {
+                exec.checkCanceled();
+                exec.setProgress(transferredRows / (double)numRows);
+                final int rows = Math.min(planner.getChunkSize(), numRows - transferredRows);
+                final String range = (transferredRows + 1) + ":" + (transferredRows + rows);
+
+                // Column slices (strings in UTF-8) and row names if not compact
+                final String expression = "serialize(list(lapply(unname(as.list(" + varName + ")),function(knime.c){"
+                    + "knime.c<-knime.c[" + range + "];"
+                    + "if(is.factor(knime.c)){levels(knime.c)<-enc2utf8(levels(knime.c))}"
+                    + "else if(is.character(knime.c)){knime.c<-enc2utf8(knime.c)};knime.c}),"
+                    + (compactRowNames ? "NULL" : "as.character(attr(" + varName + ",'row.names')[" + range + "])")
+                    + "),NULL,xdr=TRUE,version=2)";
+                final long fetchStart = System.nanoTime();
+                // the received bytes are not referenced after parsing, so they can be collected while converting
+                final List<?> chunk = (List<?>)RSerialization.Reader.read(eval(expression, true).asBytes()).m_values;
+                planner.chunkDone(rows, System.nanoTime() - fetchStart);
+
+                @SuppressWarnings("unchecked")
+                final List<RSerialization.RVector> columns = (List<RSerialization.RVector>)chunk.get(0);
+                final RSerialization.RVector rowNames = (RSerialization.RVector)chunk.get(1);
 
                 if (cont == null) {
-                    // create container and outspec for the first batch of rows
+                    final DataColumnSpec[] colSpecs = new DataColumnSpec[numColumns];
+                    for (int i = 0; i < numColumns; ++i) {
+                        colSpecs[i] = new DataColumnSpecCreator(columnNames[i], getSerializedColType(columns.get(i)))
+                            .createSpec();
+                    }
                     cont = exec.createDataContainer(new DataTableSpec(colSpecs));
                 }
 
-                Stream.of(futures).filter(o -> o != null).forEach(f -> {
-                    try {
-                        f.get();
-                    } catch (final Throwable e) {
-                        throw new RuntimeException("Error during conversion of R values to KNIME types.", e);
+                final DataCell[][] cells = new DataCell[numColumns][rows];
+                for (int i = 0; i < numColumns; ++i) {
+                    importSerializedCells(columns.get(i), cells[i], nonNumbersAsMissing);
+                    // release the values of each column once converted, like the chunks of the default import
+                    columns.set(i, null);
+                }
+                final String[] rowIds = compactRowNames ? null : (String[])rowNames.m_values;
+                for (int r = 0; r < rows; ++r) {
+                    final DataCell[] row = new DataCell[numColumns];
+                    for (int i = 0; i < numColumns; ++i) {
+                        row[i] = cells[i][r];
                     }
-                });
+                    final String key = compactRowNames ? Long.toString(1L + transferredRows + r) : rowIds[r];
+                    cont.addRowToTable(new DefaultRow(new RowKey(key), row));
+                }
+                transferredRows += rows;
+            }
+        } catch (final REXPMismatchException | IOException | ClassCastException e) {
+            throw new RException("Could not read the serialized chunk of " + varName + ".", e);
+        }
+        cont.close();
+        exec.setProgress(1.0);
+        return cont.getTable();
+    }
+
+    /**
+     * @return the cell type of a vector received in R serialization format
+     */
+    private static DataType getSerializedColType(final RSerialization.RVector column) {
+        if (column.inherits("factor")) {
+            return StringCell.TYPE;
+        }
+        switch (column.m_type) {
+            case RSerialization.LGLSXP:
+                return BooleanCell.TYPE;
+            case RSerialization.INTSXP:
+                return IntCell.TYPE;
+            case RSerialization.REALSXP:
+                return DoubleCell.TYPE;
+            default:
+                return StringCell.TYPE;
+        }
+    }
+
+    /**
+     * Import the values of a vector received in R serialization format. Factors create one cell per level, which is
+     * shared by all rows of that level.
+     *
+     * @param column the vector
+     * @param cells cells to fill
+     * @param nonNumbersAsMissing Convert NaN and Infinity to {@link MissingCell}.
+     */
+    private static void importSerializedCells(final RSerialization.RVector column, final DataCell[] cells,
+        final boolean nonNumbersAsMissing) {
+        if (column.inherits("factor")) {
+            final String[] levels = (String[])column.getAttribute("levels").m_values;
+            final DataCell[] levelCells = new DataCell[levels.length];
+            for (int i = 0; i < levels.length; ++i) {
+                levelCells[i] = (levels[i] == null) ? DataType.getMissingCell() : new StringCell(levels[i]);
+            }
+            final int[] codes = (int[])column.m_values;
+            for (int i = 0; i < cells.length; ++i) {
+                cells[i] =
+                    (codes[i] == RSerialization.NA_INTEGER) ? DataType.getMissingCell() : levelCells[codes[i] - 1];
+            }
+            return;
+        }
+        switch (column.m_type) {
+            case RSerialization.LGLSXP:
+                final int[] logicals = (int[])column.m_values;
+                for (int i = 0; i < cells.length; ++i) {
+                    if (logicals[i] == RSerialization.NA_INTEGER) {
+                        cells[i] = DataType.getMissingCell();
+                    } else {
+                        cells[i] = (logicals[i] != 0) ? BooleanCell.TRUE : BooleanCell.FALSE;
+                    }
+                }
+                break;
+            case RSerialization.INTSXP:
+                final int[] ints = (int[])column.m_values;
+                for (int i = 0; i < cells.length; ++i) {
+                    cells[i] =
+                        (ints[i] == RSerialization.NA_INTEGER) ? DataType.getMissingCell() : new IntCell(ints[i]);
+                }
+                break;
+            case RSerialization.REALSXP:
+                final double[] doubles = (double[])column.m_values;
+                for (int i = 0; i < cells.length; ++i) {
+                    final double val = doubles[i];
+                    if (REXPDouble.isNA(val)
+                        || (nonNumbersAsMissing && (Double.isNaN(val) || Double.isInfinite(val)))) {
+                        cells[i] = DataType.getMissingCell();
+                    } else {
+                        cells[i] = new DoubleCell(val);
+                    }
+                }
+                break;
+            default:
+                final String[] strings = (String[])column.m_values;
+                for (int i = 0; i < cells.length; ++i) {
+                    cells[i] = (strings[i] == null) ? DataType.getMissingCell() : new StringCell(strings[i]);
+                }
+        }
+    }
+
+    /**
+     * A chunk of rows of a table imported from R, which is converted to KNIME cells and added to a container. The
+     * received values are only referenced by the conversion tasks, and the cells only until their row was added, so
+     * that the chunk is not held in memory in all three forms at once.
+     */
+    private final class ImportChunk {
+        /** Row names of the chunk, <code>null</code> if compact */
+        final REXP m_rowIds;
 
-                final REXP rRowIds =
-                    (compactRowNames) ? null : getREngine().eval("knime.out.row.names[" + rowRangeExpr + "]");
+        /** Index of the first row of this chunk in the table */
+        final int m_start;
 
-                final DataCell[] curRow = new DataCell[numColumns];
+        /** Number of rows in this chunk */
+        final int m_size;
 
-                final BufferedDataContainer finalCont = cont;
-                final int finalTransferredRows = transferredRows;
-                final int finalRowsThisBatch = rowsThisBatch;
-                // Should never happen, only happens if Rserve returns less bytes than expected. Maybe a version issue?
-                CheckUtils.checkState(compactRowNames || (rRowIds != null), "Received an invalid packet from Rserve.");
-                final Callable<Void> addRowsCallable = ThreadUtils.callableWithContext(() -> {
-                    @SuppressWarnings("null")
-                    final String[] rowIds = compactRowNames ? null : rRowIds.asStrings();
-                    for (int i = 0; i < finalRowsThisBatch; ++i) {
-                        @SuppressWarnings("null")
-                        final RowKey rowKey = compactRowNames ? new RowKey(Long.toString(1 + i + finalTransferredRows))
-                            : new RowKey(rowIds[i]);
-                        for (int col = 0; col < columns.length; ++col) {
-                            curRow[col] = columns[col][i];
+        /** Converted cells per column */
+        final DataCell[][] m_columns;
+
+        final List<Future<Void>> m_futures = new ArrayList<>();
+
+        ImportChunk(final REXP rowIds, final int start, final int size, final int numColumns) {
+            m_rowIds = rowIds;
+            m_start = start;
+            m_size = size;
+            m_columns = new DataCell[numColumns][size];
+        }
+
+        /**
+         * Start converting the values of all columns, columns of primitive vectors are converted in parallel.
+         *
+         * @param data slices of all columns, followed by the row names if not compact. The columns are removed from
+         *            the list once their conversion has started.
+         * @param integer64Columns which columns are raw bytes of bit64 integer64 vectors
+         */
+        void convert(final RList data, final ThreadPool threadPool, final boolean nonNumbersAsMissing,
+            final boolean[] integer64Columns) throws REXPMismatchException {
+            for (int i = 0; i < m_columns.length; ++i) {
+                final REXP column = data.at(i);
+                final DataCell[] columnCells = m_columns[i];
+                // the conversion task holds the only reference, so the values are released once it is done
+                data.set(i, null);
+
+                if (column.isNull()) {
+                    Arrays.fill(columnCells, DataType.getMissingCell());
+                } else if (column.inherits("knime.sparse")) {
+                    // Row and column indices of the non-zero values of a sparse matrix, see #createChunkExpression
+                    final RList sparse = column.asList();
+                    final Callable<Void> callable = ThreadUtils.callableWithContext(() -> {
+                        importSparseBitVectorCells(sparse.at(0).asIntegers(), sparse.at(1).asIntegers(),
+                            sparse.at(2).asInteger(), columnCells);
+                        return null;
+                    });
+                    m_futures.add(threadPool != null ? threadPool.enqueue(callable) : R_THREAD_POOL.submit(callable));
+                } else if (column.inherits("knime.matrix")) {
+                    // Column-major values of a matrix column and its number of columns, see #createChunkExpression
+                    final RList matrix = column.asList();
+                    final Callable<Void> callable = ThreadUtils.callableWithContext(() -> {
+                        importMatrixCells(matrix.at(0), matrix.at(1).asInteger(), columnCells, nonNumbersAsMissing);
+                        return null;
+                    });
+                    m_futures.add(threadPool != null ? threadPool.enqueue(callable) : R_THREAD_POOL.submit(callable));
+                } else if (column.inherits("knime.csr")) {
+                    // Elements of all rows and the number of elements per row, see #createChunkExpression
+                    final RList csr = column.asList();
+                    final Callable<Void> callable = ThreadUtils.callableWithContext(() -> {
+                        importListCells(csr.at(0), csr.at(1).asIntegers(), columnCells, nonNumbersAsMissing);
+                        return null;
+                    });
+                    m_futures.add(threadPool != null ? threadPool.enqueue(callable) : R_THREAD_POOL.submit(callable));
+                } else if (column.isList()) {
+                    int row = 0;
+                    for (final Object o : column.asList()) {
+                        final REXP rexp = (REXP)o;
+                        if (rexp.isNull()) {
+                            columnCells[row] = DataType.getMissingCell();
+                        } else {
+                            if (rexp.isVector()) {
+                                final REXPVector colValue = (REXPVector)rexp;
+                                final DataCell[] listCells = new DataCell[colValue.length()];
+                                importCells(colValue, listCells, nonNumbersAsMissing);
+                                columnCells[row] = CollectionCellFactory.createListCell(Arrays.asList(listCells));
+                            } else {
+                                LOGGER.warn("Expected Vector type for list cell. Inserting missing cell instead.");
+                                columnCells[row] = DataType.getMissingCell();
+                            }
                         }
-                        finalCont.addRowToTable(new DefaultRow(rowKey, curRow));
+                        ++row;
                     }
-                    return null;
-                });
-                addRowsFuture =
-                    threadPool != null ? threadPool.enqueue(addRowsCallable) : R_THREAD_POOL.submit(addRowsCallable);
-
-                transferredRows += rowsThisBatch;
+                } else {
+                    final boolean isInteger64 = integer64Columns[i];
+                    final Callable<Void> callable = ThreadUtils.callableWithContext(() -> {
+                        if (isInteger64) {
+                            importLongCells(column.asBytes(), columnCells);
+                        } else {
+                            importCells(column, columnCells, nonNumbersAsMissing);
+                        }
+                        return null;
+                    });
+                    m_futures.add(threadPool != null ? threadPool.enqueue(callable) : R_THREAD_POOL.submit(callable));
+                }
             }
+        }
 
-            if (addRowsFuture != null) {
+        /**
+         * Wait until all columns are converted.
+         */
+        void awaitConversion() {
+            m_futures.forEach(f -> {
                 try {
-                    addRowsFuture.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException("Error while adding rows to table.", e);
+                    f.get();
+                } catch (final Throwable e) {
+                    throw new RuntimeException("Error during conversion of R values to KNIME types.", e);
                 }
+            });
+        }
+
+        /**
+         * Start adding the converted rows to a container.
+         *
+         * @return future of the task adding the rows
+         */
+        Future<Void> addRows(final BufferedDataContainer cont, final boolean compactRowNames,
+            final ThreadPool threadPool) {
+            final REXP rRowIds = m_rowIds;
+            // Should never happen, only happens if Rserve returns less bytes than expected. Maybe a version issue?
+            CheckUtils.checkState(compactRowNames || (rRowIds != null), "Received an invalid packet from Rserve.");
+
+            final Callable<Void> addRowsCallable = ThreadUtils.callableWithContext(() -> {
+                final DataCell[] curRow = new DataCell[m_columns.length];
+                @SuppressWarnings("null")
+                final String[] rowIds = compactRowNames ? null
+                    : (rRowIds instanceof REXPInteger) ? IntStream.of(rRowIds.asIntegers()).mapToObj(Integer::toString)
+                        .toArray(String[]::new) : rRowIds.asStrings();
+                for (int i = 0; i < m_size; ++i) {
+                    @SuppressWarnings("null")
+                    final RowKey rowKey =
+                        compactRowNames ? new RowKey(Long.toString(1 + i + m_start)) : new RowKey(rowIds[i]);
+                    for (int col = 0; col < m_columns.length; ++col) {
+                        curRow[col] = m_columns[col][i];
+                        // only referenced by the row from now on, which the container may write to disk
+                        m_columns[col][i] = null;
+                    }
+                    cont.addRowToTable(new DefaultRow(rowKey, curRow));
+                }
+                return null;
+            });
+            return threadPool != null ? threadPool.enqueue(addRowsCallable) : R_THREAD_POOL.submit(addRowsCallable);
+        }
+
+        void cancel() {
+            m_futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Wait until the rows of a chunk have been added to the output container.
+     *
+     * @param addRowsFuture future of the task adding rows, may be <code>null</code>
+     */
+    private static void awaitRowsAdded(final Future<Void> addRowsFuture) {
+        if (addRowsFuture != null) {
+            try {
+                addRowsFuture.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException("Error while adding rows to table.", e);
             }
+        }
+    }
 
-            // can only happen if knime.out is an empty data.frame/table
-            if (cont == null) {
-                assert transferredRows == 0 : "No output container was initialized, although knime.out contained data";
-                // create container and outspec for the first batch of rows
-                final RList data = getREngine().get(varName, null, true).asList();
-                cont = exec.createDataContainer(createSpecFromEmptyDataFrame(columnNames, data));
+    /**
+     * @return number of bytes chunks which are being transferred from or to R may occupy on the heap in total
+     */
+    private static long getTransferMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Estimate the number of bytes per row of a chunk received from R.
+     *
+     * @param data slices of the columns (and row names) of the chunk
+     * @param rows number of rows of the chunk
+     * @return estimated bytes per row
+     */
+    private static long estimateBytesPerRow(final RList data, final int rows) throws REXPMismatchException {
+        long bytes = 0;
+        for (int i = 0; i < data.size(); i++) {
+            final REXP column = data.at(i);
+            if (column instanceof REXPDouble) {
+                bytes += 8L * rows;
+            } else if (column instanceof REXPInteger) {
+                bytes += 4L * rows;
+            } else if (column instanceof REXPLogical) {
+                bytes += rows;
+            } else if (column instanceof REXPString) {
+                for (final String value : column.asStrings()) {
+                    bytes += (value == null) ? 1 : (value.length() + 1);
+                }
+            } else if (column != null) {
+                bytes += 64L * rows;
             }
-            cont.close();
-            return cont.getTable();
-        } catch (final REXPMismatchException e) {
-            throw new RException("Could not parse REXP.", e);
-        } catch (final REngineException e) {
-            throw new RException("Could not get value of " + varName + " from workspace.", e);
         }
+        return Math.max(1, bytes / Math.max(1, rows));
+    }
+
+    /**
+     * Create an R expression which returns a list of the given rows of all columns of a data.frame or data.table,
+     * optionally followed by the row names of these rows. Columns of class integer64 are returned as raw vectors of
+     * their little endian 64-bit values. List columns of plain atomic vectors of the same type are returned as a list
+     * of class "knime.csr" holding the elements of all rows in one vector and the number of elements per row, NA for
+     * NULL. Lists of mixed types are returned unchanged, since unlist() would coerce their elements.
+     * Matrix columns are returned as a list of class "knime.matrix" holding the column-major values of the rows and
+     * the number of matrix columns. The rows of the given sparse matrices follow the columns, each as a list of class
+     * "knime.sparse" holding the 0-based row and column indices of its non-zero values and its number of columns.
+     *
+     * @param varName the data.frame/data.table
+     * @param start first row, 1-based
+     * @param end last row, inclusive
+     * @param rowNames whether to append the row names
+     * @param integerRowNames whether the row names are integers, which are then appended as integers
+     * @param sparseMatrices names of sparse matrices with one row per row of the data.frame/data.table
+     * @return the expression
+     */
+    private static String createChunkExpression(final String varName, final int start, final int end,
+        final boolean rowNames, final boolean integerRowNames, final String[] sparseMatrices) {
+        final String range = start + ":" + end;
+        // the values of bit64 integer64 columns are sent as their raw bytes
+        final String columns = "unname(lapply(" + varName + ",function(knime.c){"
+            + "if(is.matrix(knime.c)&&is.atomic(knime.c)){knime.c<-knime.c[" + range + ",,drop=FALSE];"
+            + "return(structure(list(as.vector(knime.c),ncol(knime.c)),class='knime.matrix'))};knime.c<-knime.c["
+            + range + "];if(inherits(knime.c,'integer64'))writeBin(unclass(knime.c),raw(),size=8,endian='little')"
+            + "else if(is.list(knime.c)&&all(vapply(knime.c,function(e)is.null(e)||(is.atomic(e)&&"
+            + "is.null(oldClass(e))),TRUE))&&length(setdiff(vapply(knime.c,typeof,''),'NULL'))<=1){"
+            + "knime.n<-lengths(knime.c,use.names=FALSE);"
+            + "knime.n[vapply(knime.c,is.null,TRUE)]<-NA;"
+            + "structure(list(unlist(knime.c,use.names=FALSE),knime.n),class='knime.csr')}else knime.c}))";
+        final StringBuilder expression = new StringBuilder("c(").append(columns);
+        for (final String matrix : sparseMatrices) {
+            expression.append(",list(local({knime.m<-methods::as(`").append(matrix).append("`[").append(range)
+                .append(",,drop=FALSE],'TsparseMatrix');knime.k<-if(methods::.hasSlot(knime.m,'x'))"
+                    + "which(knime.m@x!=0)else seq_along(knime.m@i);structure(list(knime.m@i[knime.k],"
+                    + "knime.m@j[knime.k],ncol(knime.m)),class='knime.sparse')}))");
+        }
+        if (rowNames) {
+            expression.append(integerRowNames ? ",list(attr(" : ",list(as.character(attr(").append(varName)
+                .append(",'row.names')[").append(range).append(integerRowNames ? "]))" : "])))");
+        }
+        return expression.append(')').toString();
     }
 
     /**
@@ -793,6 +1343,17 @@ private static DataType getColType(final REXP c) {
         if (!c.isList()) {
             return importDataType(c);
         }
+        if (c.inherits("knime.sparse")) {
+            return SparseBitVectorCell.TYPE;
+        }
+        if (c.inherits("knime.matrix")) {
+            // all values of a matrix have the same type
+            try {
+                return DataType.getType(ListCell.class, importDataType(c.asList().at(0)));
+            } catch (final REXPMismatchException e) {
+                // fall through to the generic list type
+            }
+        }
         return DataType.getType(ListCell.class, DataType.getType(DataCell.class));
     }
 
@@ -824,6 +1385,45 @@ private static final void importCells(final REXP rexp, final DataCell[] column,
                 final String colValue = strings.at(r);
                 column[r] = (colValue == null) ? DataType.getMissingCell() : new StringCell(colValue);
             }
+        } else if (rexp.inherits("integer64")) {
+            // bit64 stores 64-bit integers in the bits of doubles
+            final double[] doubles = rexp.asDoubles();
+            for (int i = 0; i < doubles.length; ++i) {
+                final long val = Double.doubleToRawLongBits(doubles[i]);
+                column[i] = (val == INTEGER64_NA) ? DataType.getMissingCell() : new LongCell(val);
+            }
+        } else if (rexp.inherits("Date")) {
+            final double[] days = asTemporalValues(rexp);
+            for (int i = 0; i < days.length; ++i) {
+                column[i] = Double.isFinite(days[i])
+                    ? LocalDateCellFactory.create(LocalDate.ofEpochDay((long)Math.floor(days[i])))
+                    : DataType.getMissingCell();
+            }
+        } else if (rexp.inherits("POSIXct")) {
+            final double[] seconds = asTemporalValues(rexp);
+            final ZoneId zone = getRTimeZone(rexp);
+            for (int i = 0; i < seconds.length; ++i) {
+                if (!Double.isFinite(seconds[i])) {
+                    column[i] = DataType.getMissingCell();
+                } else if (zone == null) {
+                    column[i] = LocalDateTimeCellFactory
+                        .create(LocalDateTime.ofInstant(toInstant(seconds[i]), ZoneOffset.UTC));
+                } else {
+                    column[i] = ZonedDateTimeCellFactory.create(ZonedDateTime.ofInstant(toInstant(seconds[i]), zone));
+                }
+            }
+        } else if (rexp.inherits("difftime")) {
+            final double[] values = asTemporalValues(rexp);
+            final double unit = getDifftimeUnitSeconds(rexp);
+            for (int i = 0; i < values.length; ++i) {
+                if (Double.isFinite(values[i])) {
+                    final Instant duration = toInstant(values[i] * unit);
+                    column[i] = DurationCellFactory
+                        .create(Duration.ofSeconds(duration.getEpochSecond(), duration.getNano()));
+                } else {
+                    column[i] = DataType.getMissingCell();
+                }
+            }
         } else if (rexp.isInteger()) {
             final int[] ints = rexp.asIntegers();
             for (int i = 0; i < ints.length; ++i) {
@@ -856,25 +1456,187 @@ private static final void importCells(final REXP rexp, final DataCell[] column,
     }
 
     /**
-     * Get cell type as which a REXP would be imported.
+     * Import the rows of a sparse matrix as bit vectors, every non-zero value is a set bit.
+     *
+     * @param rows 0-based row indices of the non-zero values
+     * @param columns 0-based column indices of the non-zero values
+     * @param numMatrixColumns number of columns of the matrix, the length of the bit vectors
+     * @param column cells to fill, one per matrix row
      */
-    private static DataType importDataType(final REXP column) {
-        if (column.isNull()) {
-            return StringCell.TYPE;
-        } else if (column.isLogical()) {
-            return BooleanCell.TYPE;
-        } else if (column.isFactor()) {
-            return StringCell.TYPE;
-        } else if (column.isInteger()) {
-            return IntCell.TYPE;
-        } else if (column.isNumeric()) {
-            return DoubleCell.TYPE;
-        } else {
-            return StringCell.TYPE;
+    private static void importSparseBitVectorCells(final int[] rows, final int[] columns, final int numMatrixColumns,
+        final DataCell[] column) {
+        final SparseBitVectorCellFactory[] factories = new SparseBitVectorCellFactory[column.length];
+        for (int row = 0; row < column.length; ++row) {
+            factories[row] = new SparseBitVectorCellFactory(numMatrixColumns);
+        }
+        for (int i = 0; i < rows.length; ++i) {
+            factories[rows[i]].set(columns[i]);
+        }
+        for (int row = 0; row < column.length; ++row) {
+            column[row] = factories[row].createDataCell();
         }
     }
 
-    // --- Workspace management ---
+    /**
+     * Import a matrix column, every row of the matrix becomes a list cell.
+     *
+     * @param values column-major values of the matrix
+     * @param numMatrixColumns number of columns of the matrix
+     * @param column cells to fill, one per matrix row
+     * @param nonNumbersAsMissing Convert NaN and Infinity to {@link MissingCell}.
+     */
+    private static void importMatrixCells(final REXP values, final int numMatrixColumns, final DataCell[] column,
+        final boolean nonNumbersAsMissing) throws REXPMismatchException {
+        final DataCell[] elements = new DataCell[values.isNull() ? 0 : values.length()];
+        if (elements.length > 0) {
+            importCells(values, elements, nonNumbersAsMissing);
+        }
+        final int numRows = column.length;
+        for (int row = 0; row < numRows; ++row) {
+            final DataCell[] rowCells = new DataCell[numMatrixColumns];
+            for (int j = 0; j < numMatrixColumns; ++j) {
+                rowCells[j] = elements[row + (j * numRows)];
+            }
+            column[row] = CollectionCellFactory.createListCell(Arrays.asList(rowCells));
+        }
+    }
+
+    /**
+     * Import a list column from the elements of all its rows and the number of elements per row.
+     *
+     * @param values elements of all rows
+     * @param lengths number of elements of each row, NA for missing cells
+     * @param column cells to fill
+     * @param nonNumbersAsMissing Convert NaN and Infinity to {@link MissingCell}.
+     */
+    private static void importListCells(final REXP values, final int[] lengths, final DataCell[] column,
+        final boolean nonNumbersAsMissing) throws REXPMismatchException {
+        final DataCell[] elements = new DataCell[values.isNull() ? 0 : values.length()];
+        if (elements.length > 0) {
+            importCells(values, elements, nonNumbersAsMissing);
+        }
+        final List<DataCell> elementList = Arrays.asList(elements);
+        int offset = 0;
+        for (int row = 0; row < column.length; ++row) {
+            if (lengths[row] == REXPInteger.NA) {
+                column[row] = DataType.getMissingCell();
+            } else {
+                column[row] = CollectionCellFactory.createListCell(elementList.subList(offset, offset + lengths[row]));
+                offset += lengths[row];
+            }
+        }
+    }
+
+    /**
+     * Import the little endian 64-bit values of a bit64 integer64 vector.
+     *
+     * @param bytes raw bytes of the vector
+     * @param column cells to fill
+     */
+    private static void importLongCells(final byte[] bytes, final DataCell[] column) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < bytes.length / Long.BYTES; ++i) {
+            final long val = buffer.getLong(i * Long.BYTES);
+            column[i] = (val == INTEGER64_NA) ? DataType.getMissingCell() : new LongCell(val);
+        }
+    }
+
+    /**
+     * Get the values of a Date, POSIXct or difftime vector, which may be stored as integer or double.
+     *
+     * @return the values, NaN for NA
+     */
+    private static double[] asTemporalValues(final REXP rexp) throws REXPMismatchException {
+        if (rexp.isInteger()) {
+            return Arrays.stream(rexp.asIntegers()).mapToDouble(v -> v == REXPInteger.NA ? Double.NaN : v).toArray();
+        }
+        final double[] values = rexp.asDoubles();
+        for (int i = 0; i < values.length; i++) {
+            if (REXPDouble.isNA(values[i])) {
+                values[i] = Double.NaN;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return instant of a number of seconds since epoch, with the fractional part as nanoseconds
+     */
+    private static Instant toInstant(final double seconds) {
+        final long wholeSeconds = (long)Math.floor(seconds);
+        final long nanos = Math.round((seconds - wholeSeconds) * 1e9);
+        return Instant.ofEpochSecond(wholeSeconds, nanos);
+    }
+
+    /**
+     * Get the time zone of a POSIXct vector. Vectors in time zone "UTC" are imported as local date time, which is how
+     * local date time columns are sent to R.
+     *
+     * @return the time zone, <code>null</code> for "UTC"
+     */
+    private static ZoneId getRTimeZone(final REXP rexp) {
+        final REXP tzone = rexp.getAttribute("tzone");
+        try {
+            final String name = (tzone == null || tzone.isNull()) ? "" : tzone.asString();
+            if ("UTC".equals(name)) {
+                return null;
+            }
+            // empty for the time zone of the R session, which runs on the same machine
+            return name.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(name);
+        } catch (final REXPMismatchException | DateTimeException e) {
+            // time zone unknown to Java, keep the instant in the default time zone
+            return ZoneId.systemDefault();
+        }
+    }
+
+    /**
+     * @return the number of seconds of one unit of a difftime vector
+     */
+    private static double getDifftimeUnitSeconds(final REXP rexp) throws REXPMismatchException {
+        final REXP units = rexp.getAttribute("units");
+        final String unit = (units == null || units.isNull()) ? "secs" : units.asString();
+        switch (unit) {
+            case "mins":
+                return 60;
+            case "hours":
+                return 3600;
+            case "days":
+                return 86400;
+            case "weeks":
+                return 604800;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Get cell type as which a REXP would be imported.
+     */
+    private static DataType importDataType(final REXP column) {
+        if (column.isNull()) {
+            return StringCell.TYPE;
+        } else if (column.isLogical()) {
+            return BooleanCell.TYPE;
+        } else if (column.isFactor()) {
+            return StringCell.TYPE;
+        } else if (column.inherits("integer64")) {
+            return LongCell.TYPE;
+        } else if (column.inherits("Date")) {
+            return LocalDateCellFactory.TYPE;
+        } else if (column.inherits("POSIXct")) {
+            return getRTimeZone(column) == null ? LocalDateTimeCellFactory.TYPE : ZonedDateTimeCellFactory.TYPE;
+        } else if (column.inherits("difftime")) {
+            return DurationCellFactory.TYPE;
+        } else if (column.isInteger()) {
+            return IntCell.TYPE;
+        } else if (column.isNumeric()) {
+            return DoubleCell.TYPE;
+        } else {
+            return StringCell.TYPE;
+        }
+    }
+
+    // --- Workspace management ---
 
     @Override
     public void clearWorkspace(final ExecutionMonitor exec) throws RException, CanceledExecutionException {
@@ -930,84 +1692,1192 @@ public List<String> importListOfLibrariesAndDelete() throws RException {
         } catch (final REXPMismatchException e) {
             LOGGER.error("Rengine error: " + e.getMessage());
         }
-        return Collections.emptyList();
+        return Collections.emptyList();
+    }
+
+    /**
+     * Type of a column on R side, the mode of the R vector which is allocated for that type and the estimated number
+     * of bytes per value sent to R
+     */
+    private enum ExportType {
+            LOGICAL("logical", 4), //
+            INTEGER("integer", 4), //
+            /** Raw bytes of 64-bit integers, read into a double vector whose class is set to "integer64" at the end */
+            INTEGER64("double", 8), //
+            DOUBLE("double", 8), //
+            /** Factor codes into knime.levels, converted to factors once all rows have been sent */
+            FACTOR("integer", 4), //
+            CHARACTER("character", 32), //
+            /** Days since epoch, class "Date" is set once all rows have been sent */
+            DATE("double", 8), //
+            /** Seconds since epoch of the local date time in UTC, class "POSIXct" is set once all rows have been sent */
+            LOCAL_DATE_TIME("double", 8), //
+            /** Seconds since epoch, class "POSIXct" is set once all rows have been sent */
+            ZONED_DATE_TIME("double", 8), //
+            /** Seconds, class "difftime" is set once all rows have been sent */
+            DURATION("double", 8), //
+            LIST("list", 64), //
+            /** Indices of the set bits, collected in R and turned into a sparse matrix outside of the table */
+            SPARSE("NULL", 16);
+
+        final String m_mode;
+
+        final long m_bytes;
+
+        ExportType(final String mode, final long bytes) {
+            m_mode = mode;
+            m_bytes = bytes;
+        }
+    }
+
+    /** NA of bit64 integer64, the smallest 64-bit integer */
+    private static final long INTEGER64_NA = Long.MIN_VALUE;
+
+    /** Estimated number of bytes of a row name */
+    private static final long ROW_NAME_BYTES = 16;
+
+    /** Maximum number of rows sampled to decide how to encode a string column, see {@link StringEncoding#AUTO} */
+    private static final int STRING_SAMPLE_ROWS = 10000;
+
+    /** Maximum number of cells sampled over all string columns, limits the sample for wide tables */
+    private static final int STRING_SAMPLE_CELLS = 1000000;
+
+    /** Minimum number of distinct values in the sample for a string column to be sent as character vector */
+    private static final int CHARACTER_MIN_DISTINCT = 1000;
+
+    /** Minimum ratio of distinct to non-missing values in the sample for a string column to be sent as character */
+    private static final double CHARACTER_MIN_DISTINCT_RATIO = 0.5;
+
+    private static final AtomicInteger R_THREAD_POOL_INDEX = new AtomicInteger();
+
+    private static final ExecutorService R_THREAD_POOL = new ThreadPoolExecutor(0,
+        Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+        r -> new Thread(r, "R-DataExchange-" + R_THREAD_POOL_INDEX.getAndIncrement()));
+
+    /** Number of rows of the first chunk fetched from R when importing a table */
+    private static final int IMPORT_CHUNK_ROWS = 50000;
+
+    /** Rough estimate of the heap used per cell of an imported chunk, as R value and as KNIME cell */
+    private static final long IMPORT_BYTES_PER_CELL = 64;
+
+    /**
+     * Maximum number of chunks which are converted or added to the table while the next chunk is fetched from R. The
+     * actual number is limited by {@link #getTransferMemoryBudget()}.
+     */
+    private static final int IMPORT_PIPELINE_DEPTH = 2;
+
+    /** Number of batches sent to R concurrently, one is filled from the table while the other one is sent */
+    private static final int NUM_SEND_BUFFERS = 2;
+
+    /** Interval in milliseconds in which monitored evaluations check whether execution was cancelled. */
+    private static final long MONITOR_INTERVAL = 50;
+
+    private static final AtomicInteger R_EVALUATION_POOL_INDEX = new AtomicInteger();
+
+    /** Maximum number of threads for monitored evaluations if the number of R processes is not limited */
+    private static final int MAX_EVALUATION_THREADS = 64;
+
+    /**
+     * Threads for monitored evaluations. Threads are reused across evaluations and retired after being idle for a
+     * minute. There is at most one evaluation per R process, twice the maximum number of processes leaves room for
+     * threads of cancelled evaluations which are still blocked on their terminated connection. Further evaluations
+     * wait for a free thread.
+     */
+    private static final ExecutorService R_EVALUATION_POOL = createEvaluationPool();
+
+    private static ExecutorService createEvaluationPool() {
+        final int maxProcesses = RConnectionFactory.getMaxProcesses();
+        final int maxThreads = maxProcesses > 0 ? (2 * maxProcesses) : MAX_EVALUATION_THREADS;
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                final Thread t = new Thread(r, "R-Evaluation-" + R_EVALUATION_POOL_INDEX.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Detects whether the row keys of a table follow a pattern <code>&lt;prefix&gt;&lt;start + row index&gt;</code>,
+     * like "Row0", "Row1", ... or "1", "2", ..., in which case they are created in R instead of being sent.
+     */
+    private static final class RowKeyPattern {
+        private static final Pattern NUMBERED_KEY = Pattern.compile("(.*?)(0|[1-9][0-9]{0,9})");
+
+        /** Prefix of the keys, <code>null</code> before the first key or if the first key does not end with a number */
+        String m_prefix;
+
+        /** Number of the first key */
+        int m_start;
+
+        /** Number of leading keys which match the pattern */
+        long m_matchingRows;
+
+        private boolean m_broken;
+
+        /**
+         * @param rowIndex index of the row, keys have to be added in order
+         * @param key the key of the row
+         * @param rowCount number of rows of the table
+         */
+        void keyAdded(final long rowIndex, final String key, final long rowCount) {
+            if (m_broken) {
+                return;
+            }
+            if (rowIndex == 0) {
+                final Matcher matcher = NUMBERED_KEY.matcher(key);
+                final long start = matcher.matches() ? Long.parseLong(matcher.group(2)) : -1;
+                // numbers have to fit into R integers
+                if ((start < 0) || ((start + rowCount) > Integer.MAX_VALUE)) {
+                    m_broken = true;
+                    return;
+                }
+                m_prefix = matcher.group(1);
+                m_start = (int)start;
+            } else if (!key.equals(m_prefix + (m_start + rowIndex))) {
+                m_broken = true;
+                return;
+            }
+            m_matchingRows = rowIndex + 1;
+        }
+
+        /**
+         * @return whether the keys are R's automatic row names 1, 2, ..., n, which are stored compactly
+         */
+        boolean isAutomatic() {
+            return (m_prefix != null) && m_prefix.isEmpty() && (m_start == 1);
+        }
+
+        /**
+         * @return whether the keys have a non-empty prefix, which is then sent as <code>knime.row.key.prefix</code>
+         */
+        boolean hasPrefix() {
+            return (m_prefix != null) && !m_prefix.isEmpty();
+        }
+
+        /**
+         * @param count number of keys
+         * @return R expression creating the first <code>count</code> keys, integers if there is no prefix. Expects
+         *         the prefix in <code>knime.row.key.prefix</code>.
+         */
+        String createKeysExpression(final long count) {
+            final String numbers = "seq.int(" + m_start + "L,length.out=" + count + ")";
+            return m_prefix.isEmpty() ? numbers : ("paste0(knime.row.key.prefix," + numbers + ")");
+        }
+    }
+
+    /* Column types and dictionaries shared by all batches of a transfer */
+    private static final class SharedBatchState {
+        /** Type of each column */
+        final ExportType[] m_exportTypes;
+
+        /** Type of the elements of {@link ExportType#LIST} columns, <code>null</code> for other columns */
+        final ExportType[] m_listElementTypes;
+
+        final boolean m_sendRowNames;
+
+        /** Pattern of the row keys, row names of batches whose keys all match it are not sent */
+        final RowKeyPattern m_rowKeyPattern = new RowKeyPattern();
+
+        /** Number of rows of the table */
+        final long m_rowCount;
+
+        /** Whether <code>knime.row.names</code> has been allocated, only accessed by the sending thread */
+        boolean m_rowNamesAllocated;
+
+        /**
+         * Dictionary of all string values of all factor columns sent so far. Values are the R (1-based) index of the
+         * string in knime.levels on R side.
+         */
+        final Map<String, Integer> m_levels = new HashMap<>();
+
+        /** Time zone of each {@link ExportType#ZONED_DATE_TIME} column, taken from its first value */
+        final ZoneId[] m_timeZones;
+
+        /**
+         * Length of all cells of each {@link ExportType#LIST} column sent so far, {@link #LENGTH_UNKNOWN} before the
+         * first row, {@link #LENGTH_VARYING} if the lengths differ or a cell is missing
+         */
+        final int[] m_listLengths;
+
+        /** Length of the longest bit vector of each {@link ExportType#SPARSE} column sent so far */
+        final long[] m_bitVectorLengths;
+
+        /**
+         * Directory of the memory-mapped files the fixed-width columns are written to, <code>null</code> if they are
+         * sent over the Rserve connection, see {@link RConnectionFactory#getSharedMemoryDirectory()}. Reset by
+         * sendBatches() if the directory has not enough space for the batches, or if a memory-mapped file could not
+         * be created.
+         */
+        File m_sharedMemoryDir;
+
+        static final int LENGTH_UNKNOWN = -1;
+
+        static final int LENGTH_VARYING = -2;
+
+        SharedBatchState(final ExportType[] exportTypes, final ExportType[] listElementTypes,
+            final boolean sendRowNames, final long rowCount) {
+            m_exportTypes = exportTypes;
+            m_listElementTypes = listElementTypes;
+            m_sendRowNames = sendRowNames;
+            m_rowCount = rowCount;
+            m_timeZones = new ZoneId[exportTypes.length];
+            m_listLengths = new int[exportTypes.length];
+            Arrays.fill(m_listLengths, LENGTH_UNKNOWN);
+            m_bitVectorLengths = new long[exportTypes.length];
+            m_sharedMemoryDir = Stream.of(exportTypes).anyMatch(t -> Batch.getPackedWidth(t) > 0)
+                ? RConnectionFactory.getSharedMemoryDirectory() : null;
+        }
+
+        /**
+         * Record the length of a cell of a list column.
+         *
+         * @param column index of the column
+         * @param length number of elements, negative for a missing cell
+         */
+        void listCellAdded(final int column, final int length) {
+            final int known = m_listLengths[column];
+            if (length < 0) {
+                m_listLengths[column] = LENGTH_VARYING;
+            } else if (known == LENGTH_UNKNOWN) {
+                m_listLengths[column] = length;
+            } else if (known != length) {
+                m_listLengths[column] = LENGTH_VARYING;
+            }
+        }
+    }
+
+    /**
+     * Values of a collection column in a batch, encoded as one vector of all elements and the number of elements per
+     * row (NA for missing cells), from which R rebuilds the list column with split().
+     */
+    private static final class ListValues {
+        final ExportType m_elementType;
+
+        final int[] m_lengths;
+
+        byte[] m_logicals = new byte[0];
+
+        int[] m_ints = new int[0];
+
+        double[] m_doubles = new double[0];
+
+        String[] m_strings = new String[0];
+
+        /** Number of elements in the current batch */
+        int m_count = 0;
+
+        /** Encoded size of the elements and lengths of the current batch in bytes */
+        long m_bytes = 0;
+
+        /**
+         * @param elementType type of the elements, {@link ExportType#LOGICAL}, {@link ExportType#INTEGER},
+         *            {@link ExportType#DOUBLE} or {@link ExportType#CHARACTER}
+         * @param numRows number of rows of the batch
+         */
+        ListValues(final ExportType elementType, final int numRows) {
+            m_elementType = elementType;
+            m_lengths = new int[numRows];
+        }
+
+        /**
+         * @return number of elements of the cell, -1 if it is missing
+         */
+        int set(final int row, final DataCell cell) {
+            if (cell.isMissing()) {
+                m_lengths[row] = REXPInteger.NA;
+                return -1;
+            }
+            final CollectionDataValue collValue = (CollectionDataValue)cell;
+            ensureCapacity(m_count + collValue.size());
+            for (final DataCell e : collValue) {
+                switch (m_elementType) {
+                    case LOGICAL:
+                        m_logicals[m_count] = exportBooleanValue(e);
+                        break;
+                    case INTEGER:
+                        m_ints[m_count] = exportIntValue(e);
+                        break;
+                    case DOUBLE:
+                        m_doubles[m_count] = exportDoubleValue(e);
+                        break;
+                    default:
+                        m_strings[m_count] = exportStringValue(e);
+                        m_bytes += getEncodedLength(m_strings[m_count]);
+                }
+                ++m_count;
+            }
+            m_lengths[row] = collValue.size();
+            // string elements were counted by their length above
+            m_bytes += Integer.BYTES
+                + (m_elementType == ExportType.CHARACTER ? 0 : (m_elementType.m_bytes * collValue.size()));
+            return collValue.size();
+        }
+
+        /**
+         * Set the elements of a row to the indices of the set bits of a bit vector. Missing cells become empty rows.
+         *
+         * @return length of the bit vector, 0 if it is missing
+         */
+        long setBits(final int row, final DataCell cell) {
+            if (cell.isMissing()) {
+                m_lengths[row] = 0;
+                return 0;
+            }
+            final BitVectorValue bits = (BitVectorValue)cell;
+            if (bits.length() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                    "Bit vectors of length " + bits.length() + " cannot be sent as sparse matrix.");
+            }
+            ensureCapacity(m_count + (int)bits.cardinality());
+            int count = 0;
+            for (long i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                m_ints[m_count++] = (int)i;
+                ++count;
+            }
+            m_lengths[row] = count;
+            m_bytes += Integer.BYTES * (1L + count);
+            return bits.length();
+        }
+
+        private void ensureCapacity(final int capacity) {
+            // grow by at least half of the current size to avoid copying for every row
+            switch (m_elementType) {
+                case LOGICAL:
+                    if (m_logicals.length < capacity) {
+                        m_logicals = Arrays.copyOf(m_logicals, Math.max(capacity, m_logicals.length * 3 / 2));
+                    }
+                    break;
+                case INTEGER:
+                    if (m_ints.length < capacity) {
+                        m_ints = Arrays.copyOf(m_ints, Math.max(capacity, m_ints.length * 3 / 2));
+                    }
+                    break;
+                case DOUBLE:
+                    if (m_doubles.length < capacity) {
+                        m_doubles = Arrays.copyOf(m_doubles, Math.max(capacity, m_doubles.length * 3 / 2));
+                    }
+                    break;
+                default:
+                    if (m_strings.length < capacity) {
+                        m_strings = Arrays.copyOf(m_strings, Math.max(capacity, m_strings.length * 3 / 2));
+                    }
+            }
+        }
+
+        /**
+         * Create the R representation of the values of the batch, a list of the elements and the lengths, and reset
+         * the values for the next batch.
+         *
+         * @param rows number of rows in the batch
+         * @return the list
+         */
+        REXP toREXP(final int rows) {
+            final REXP values;
+            switch (m_elementType) {
+                case LOGICAL:
+                    values = new REXPLogical(Arrays.copyOf(m_logicals, m_count));
+                    break;
+                case INTEGER:
+                    values = new REXPInteger(Arrays.copyOf(m_ints, m_count));
+                    break;
+                case DOUBLE:
+                    values = new REXPDouble(Arrays.copyOf(m_doubles, m_count));
+                    break;
+                default:
+                    values = new REXPString(Arrays.copyOf(m_strings, m_count));
+            }
+            m_count = 0;
+            m_bytes = 0;
+
+            final RList list = new RList(2, false);
+            list.add(values);
+            list.add(new REXPInteger(Arrays.copyOf(m_lengths, rows)));
+            return new REXPGenericVector(list);
+        }
+    }
+
+    /* This class ties together all variables concerning a single batch */
+    private static final class Batch implements AutoCloseable {
+        /** Size of this batch */
+        final int m_size;
+
+        /** Current row index for writing to */
+        int m_index = 0;
+
+        /** Number of rows to fill before the batch is sent, at most {@link #m_size} */
+        int m_limit;
+
+        /** Index of the first row of this batch in the table */
+        long m_start = 0;
+
+        final RList m_rBatch; // List containing rColumns
+
+        final REXPString m_rRowNames;
+
+        /** Index of the row names in the batch list */
+        final int m_rowNamesSlot;
+
+        final REXPGenericVector m_rVector;
+
+        /** Column types and dictionaries shared by all batches of a transfer */
+        final SharedBatchState m_shared;
+
+        /** Levels which were added to {@link #m_levels} since the last batch was sent */
+        final List<String> m_newLevels = new ArrayList<>();
+
+        /** Values of the fixed-width columns, sent as a single raw vector or written to a memory-mapped file */
+        final PackedColumns m_packed;
+
+        /** Values of {@link ExportType#LIST} columns, <code>null</code> for others */
+        final ListValues[] m_lists;
+
+        /**
+         * Values of all columns in column-major order if all columns are {@link ExportType#DOUBLE}, <code>null</code>
+         * otherwise. Sent as a single vector which is reshaped into a matrix on R side.
+         */
+        final double[] m_values;
+
+        /** Size of the values of a row which do not depend on the row itself, in bytes */
+        final long m_fixedRowBytes;
+
+        /** Encoded size of the rows added since the batch was last sent, in bytes */
+        long m_bytes = 0;
+
+        /**
+         * @param numRows Number of rows for this batch.
+         * @param shared Column types and dictionaries shared by all batches.
+         * @throws IOException if the memory-mapped file for the fixed-width columns could not be created
+         */
+        public Batch(final int numRows, final SharedBatchState shared) throws IOException {
+            final ExportType[] exportTypes = shared.m_exportTypes;
+            final boolean sendRowNames = shared.m_sendRowNames;
+            m_size = numRows;
+            m_limit = numRows;
+            m_shared = shared;
+            m_lists = new ListValues[exportTypes.length];
+
+            m_rRowNames = new REXPString(new String[numRows]);
+            // doubles are written to the memory-mapped file like other fixed-width columns if there is one
+            final boolean numeric = (shared.m_sharedMemoryDir == null) && isNumeric(exportTypes)
+                && (((long)numRows * exportTypes.length) <= Integer.MAX_VALUE - 8);
+            m_rowNamesSlot = numeric ? 1 : (exportTypes.length);
+
+            if (numeric) {
+                // single element instead of one per column, followed by row names and (no) levels
+                m_values = new double[numRows * exportTypes.length];
+                m_fixedRowBytes = (long)Double.BYTES * exportTypes.length;
+                m_packed = null;
+                m_rBatch = new RList(3, false);
+                m_rVector = new REXPGenericVector(m_rBatch);
+                m_rBatch.add(new REXPDouble(m_values));
+                m_rBatch.add(sendRowNames ? m_rRowNames : null);
+                m_rBatch.add(null);
+                return;
+            }
+
+            m_values = null;
+            final int[] packedWidths = Stream.of(exportTypes).mapToInt(Batch::getPackedWidth).toArray();
+            m_packed = shared.m_sharedMemoryDir == null ? new PackedColumns(numRows, packedWidths)
+                : new PackedColumns(numRows, packedWidths, shared.m_sharedMemoryDir);
+            // values in a memory-mapped file are not part of the message
+            m_fixedRowBytes = m_packed.getFile() != null ? 0 : IntStream.of(packedWidths).sum();
+            m_rBatch = new RList(exportTypes.length + 3, false);
+            m_rVector = new REXPGenericVector(m_rBatch);
+
+            for (int i = 0; i < exportTypes.length; i++) {
+                if (m_packed.isPacked(i)) {
+                    // sent as part of the packed raw vector
+                    m_rBatch.add(null);
+                    continue;
+                }
+                switch (exportTypes[i]) {
+                    case LIST:
+                        // replaced by the encoded values before the batch is sent, see #prepareForSending()
+                        m_lists[i] = new ListValues(shared.m_listElementTypes[i], numRows);
+                        m_rBatch.add(null);
+                        break;
+                    case SPARSE:
+                        // indices of the set bits of each row, encoded like a list column
+                        m_lists[i] = new ListValues(ExportType.INTEGER, numRows);
+                        m_rBatch.add(null);
+                        break;
+                    default:
+                        m_rBatch.add(new REXPString(new String[numRows]));
+                }
+            }
+            m_rBatch.add(sendRowNames ? m_rRowNames : null);
+            // Levels added to the factor dictionary during the batch, see #prepareForSending()
+            m_rBatch.add(null);
+            m_rBatch.add(m_packed.isEmpty() || (m_packed.getFile() != null) ? null : m_packed.toREXP());
+        }
+
+        /**
+         * Delete the memory-mapped file of the fixed-width columns, if any.
+         */
+        @Override
+        public void close() {
+            if (m_packed != null) {
+                m_packed.close();
+            }
+        }
+
+        /**
+         * @return width in bytes of the values of a column in {@link PackedColumns}, 0 if the type is not packed
+         */
+        static int getPackedWidth(final ExportType type) {
+            switch (type) {
+                case LOGICAL:
+                    return PackedColumns.LOGICAL_WIDTH;
+                case INTEGER:
+                case FACTOR:
+                    return PackedColumns.INTEGER_WIDTH;
+                case INTEGER64:
+                case DOUBLE:
+                case DATE:
+                case LOCAL_DATE_TIME:
+                case ZONED_DATE_TIME:
+                case DURATION:
+                    return PackedColumns.DOUBLE_WIDTH;
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * Get the factor code of a string value, adding it to the dictionary if it was not seen before.
+         *
+         * @param value the string value
+         * @return 1-based index of the value in knime.levels
+         */
+        int getFactorCode(final String value) {
+            final Map<String, Integer> levels = m_shared.m_levels;
+            final Integer code = levels.get(value);
+            if (code != null) {
+                return code;
+            }
+            /* First occurance of this string value, add it to dictionary */
+            final int newCode = levels.size() + 1; // R indices are base 1
+            levels.put(value, newCode);
+            m_newLevels.add(value);
+            m_bytes += getEncodedLength(value);
+            return newCode;
+        }
+
+        /**
+         * Assign the values of a row to the next row of this batch.
+         *
+         * @param row the row
+         */
+        void addRow(final DataRow row) {
+            final ExportType[] exportTypes = m_shared.m_exportTypes;
+            if (m_shared.m_sendRowNames) {
+                final String key = row.getKey().getString();
+                m_rRowNames.asStrings()[m_index] = key;
+                m_bytes += getEncodedLength(key);
+                m_shared.m_rowKeyPattern.keyAdded(m_start + m_index, key, m_shared.m_rowCount);
+            }
+
+            // cells are accessed by index, which does not allocate an iterator per row
+            if (m_values != null) {
+                int offset = m_index;
+                for (int c = 0; c < exportTypes.length; c++) {
+                    m_values[offset] = exportDoubleValue(row.getCell(c));
+                    offset += m_size;
+                }
+                m_bytes += m_fixedRowBytes;
+                ++m_index;
+                return;
+            }
+
+            for (int c = 0; c < exportTypes.length; c++) {
+                final DataCell cell = row.getCell(c);
+                switch (exportTypes[c]) {
+                    case LIST:
+                        m_bytes -= m_lists[c].m_bytes;
+                        m_shared.listCellAdded(c, m_lists[c].set(m_index, cell));
+                        m_bytes += m_lists[c].m_bytes;
+                        break;
+                    case SPARSE:
+                        m_bytes -= m_lists[c].m_bytes;
+                        m_shared.m_bitVectorLengths[c] =
+                            Math.max(m_shared.m_bitVectorLengths[c], m_lists[c].setBits(m_index, cell));
+                        m_bytes += m_lists[c].m_bytes;
+                        break;
+                    case LOGICAL:
+                        m_packed.putInt(c, m_index, exportLogicalValue(cell));
+                        break;
+                    case INTEGER:
+                        m_packed.putInt(c, m_index, exportIntValue(cell));
+                        break;
+                    case DOUBLE:
+                        m_packed.putDouble(c, m_index, exportDoubleValue(cell));
+                        break;
+                    case INTEGER64:
+                        m_packed.putLong(c, m_index, exportLongValue(cell));
+                        break;
+                    case FACTOR:
+                        m_packed.putInt(c, m_index, cell.isMissing() ? REXPInteger.NA
+                            : getFactorCode(((StringValue)cell).getStringValue()));
+                        break;
+                    case DATE:
+                        m_packed.putDouble(c, m_index, exportLocalDateValue(cell));
+                        break;
+                    case LOCAL_DATE_TIME:
+                        m_packed.putDouble(c, m_index, exportLocalDateTimeValue(cell));
+                        break;
+                    case ZONED_DATE_TIME:
+                        m_packed.putDouble(c, m_index, exportZonedDateTimeValue(cell));
+                        if ((m_shared.m_timeZones[c] == null) && !cell.isMissing()) {
+                            m_shared.m_timeZones[c] = ((ZonedDateTimeValue)cell).getZonedDateTime().getZone();
+                        }
+                        break;
+                    case DURATION:
+                        m_packed.putDouble(c, m_index, exportDurationValue(cell));
+                        break;
+                    default:
+                        try {
+                            final String value = exportStringValue(cell);
+                            ((REXP)m_rBatch.get(c)).asStrings()[m_index] = value;
+                            m_bytes += getEncodedLength(value);
+                        } catch (final REXPMismatchException e) {
+                            // Will never happen, the REXPs types are added according to column types.
+                            throw new IllegalStateException(e);
+                        }
+                }
+            }
+            m_bytes += m_fixedRowBytes;
+            ++m_index;
+        }
+
+        /**
+         * @return whether the batch only contains {@link ExportType#DOUBLE} columns and is sent as a single vector
+         */
+        static boolean isNumeric(final ExportType[] exportTypes) {
+            return Stream.of(exportTypes).allMatch(t -> t == ExportType.DOUBLE);
+        }
+
+        /**
+         * @return whether the row names of this batch are sent, i.e. whether not all of its keys match the pattern
+         */
+        boolean hasRowNames() {
+            return m_shared.m_sendRowNames && (m_shared.m_rowKeyPattern.m_matchingRows < (m_start + m_index));
+        }
+
+        /**
+         * Put the row names (if needed), the encoded values of list columns into the batch list and the levels which
+         * were added since the last batch into its last element.
+         */
+        public void prepareForSending() {
+            if (m_shared.m_sendRowNames) {
+                // row names are only sent if not all keys of the batch match the pattern
+                m_rBatch.set(m_rowNamesSlot, hasRowNames() ? m_rRowNames : null);
+            }
+            for (int i = 0; i < m_lists.length; i++) {
+                if (m_lists[i] != null) {
+                    m_rBatch.set(i, m_lists[i].toREXP(m_index));
+                }
+            }
+            m_rBatch.set(m_rBatch.size() - 1, new REXPString(m_newLevels.toArray(new String[m_newLevels.size()])));
+            m_newLevels.clear();
+        }
+    }
+
+    /**
+     * Create a batch. If its memory-mapped file cannot be created, e.g. because the space of the mappings of closed
+     * batches has not been released yet, this and all following batches send their fixed-width columns over the
+     * Rserve connection instead.
+     *
+     * @param numRows number of rows of the batch
+     * @param shared column types and dictionaries shared by all batches
+     * @return the batch
+     */
+    private Batch createBatch(final int numRows, final SharedBatchState shared) {
+        try {
+            return new Batch(numRows, shared);
+        } catch (final IOException e) {
+            if (shared.m_sharedMemoryDir == null) {
+                // only creating the memory-mapped file can fail
+                throw new IllegalStateException(e);
+            }
+            LOGGER.debugWithFormat("Could not create a memory-mapped file in %s, sending the remaining rows over the "
+                + "Rserve connection: %s", shared.m_sharedMemoryDir, e.getMessage());
+            shared.m_sharedMemoryDir = null;
+            return createBatch(numRows, shared);
+        }
+    }
+
+    /**
+     * @return whether a column which was sent is a numeric collection column whose cells all have the same length
+     */
+    private static boolean isMatrixColumn(final SharedBatchState shared, final int column) {
+        final ExportType elementType = shared.m_listElementTypes[column];
+        return ((elementType == ExportType.DOUBLE) || (elementType == ExportType.INTEGER))
+            && (shared.m_listLengths[column] > 0);
+    }
+
+    /**
+     * Create the script which rebuilds the list columns from the chunks of elements and lengths collected in
+     * <code>knime.list.chunks</code>. Columns in <code>knime.matrix.cols</code> become matrices with one row per
+     * table row, the others lists with one vector per row, or NULL for missing cells.
+     *
+     * @return the script
+     */
+    private static String createListColumnScript() {
+        return "for(j in seq_along(knime.list.cols)){i<-knime.list.cols[[j]];"
+            + "knime.v<-unlist(lapply(knime.list.chunks,function(b)b[[j]][[1]]),use.names=FALSE);"
+            + "if(i %in% knime.matrix.cols){cols[[i]]<-I(matrix(knime.v,nrow=rowCount,byrow=TRUE))}else{"
+            + "if(is.null(knime.v)){knime.v<-logical(0)};"
+            + "knime.n<-unlist(lapply(knime.list.chunks,function(b)b[[j]][[2]]),use.names=FALSE);"
+            + "knime.v<-unname(split(knime.v,factor(rep.int(seq_along(knime.n),ifelse(is.na(knime.n),0L,knime.n)),"
+            + "levels=seq_along(knime.n))));knime.v[is.na(knime.n)]<-list(NULL);cols[[i]]<-I(knime.v)}};"
+            + "knime.list.chunks<-NULL";
+    }
+
+    /**
+     * Create the script which turns the set bits collected in <code>knime.sparse.chunks</code> into one
+     * <code>Matrix::dgCMatrix</code> per column, named <code>&lt;name&gt;.matrix.&lt;column&gt;</code>, and removes
+     * these columns from <code>cols</code>.
+     *
+     * @param name name of the variable the table is assigned to
+     * @return the script
+     */
+    private static String createSparseMatrixScript(final String name) {
+        return "for(j in seq_along(knime.sparse.cols)){"
+            + "knime.n<-as.integer(unlist(lapply(knime.sparse.chunks,function(b)b[[j]][[2]]),use.names=FALSE));"
+            + "assign(paste0('" + name + ".matrix.',knime.col.names[[knime.sparse.cols[[j]]]]),Matrix::sparseMatrix("
+            + "j=as.integer(unlist(lapply(knime.sparse.chunks,function(b)b[[j]][[1]]),use.names=FALSE)),"
+            + "p=c(0L,cumsum(knime.n)),x=rep.int(1,sum(knime.n)),dims=c(rowCount,knime.sparse.ncols[[j]]),"
+            + "index1=FALSE))};knime.sparse.chunks<-NULL;"
+            + "cols<-cols[-knime.sparse.cols];knime.col.names<-knime.col.names[-knime.sparse.cols]";
+    }
+
+    /**
+     * @return type the elements of a collection column are sent as
+     */
+    private static ExportType getListElementType(final DataType collectionType) {
+        final DataType elementType = collectionType.getCollectionElementType();
+        if (elementType.isCompatible(BooleanValue.class)) {
+            return ExportType.LOGICAL;
+        } else if (elementType.isCompatible(IntValue.class)) {
+            return ExportType.INTEGER;
+        } else if (elementType.isCompatible(DoubleValue.class)) {
+            return ExportType.DOUBLE;
+        } else {
+            return ExportType.CHARACTER;
+        }
+    }
+
+    /**
+     * @return whether the R package bit64 is installed, which is required for lossless transfer of 64-bit integers
+     */
+    private boolean isPackageAvailable(final String packageName) throws RException {
+        try {
+            return eval("as.integer(requireNamespace('" + packageName + "',quietly=TRUE))", true).asInteger() == 1;
+        } catch (final REXPMismatchException e) {
+            throw new RException("Could not check for R package \"" + packageName + "\".", e);
+        }
+    }
+
+    /**
+     * Create an R script which sets the classes of date and time columns, which are sent as plain numbers of days or
+     * seconds since epoch, and of 64-bit integer columns, which are sent as raw bytes.
+     *
+     * @param exportTypes type of each column
+     * @param timeZones time zone of each zoned date time column, <code>null</code> if it only contains missing values
+     * @return the script, empty if there are no such columns
+     */
+    private static String createClassScript(final ExportType[] exportTypes, final ZoneId[] timeZones) {
+        final StringBuilder script = new StringBuilder();
+        for (int i = 0; i < exportTypes.length; i++) {
+            final String col = "cols[[" + (i + 1) + "]]";
+            switch (exportTypes[i]) {
+                case INTEGER64:
+                    script.append("class(").append(col).append(")<-'integer64';");
+                    break;
+                case DATE:
+                    script.append("class(").append(col).append(")<-'Date';");
+                    break;
+                case LOCAL_DATE_TIME:
+                    script.append(col).append("<-.POSIXct(").append(col).append(",tz='UTC');");
+                    break;
+                case ZONED_DATE_TIME:
+                    script.append(col).append("<-.POSIXct(").append(col).append(",tz='")
+                        .append(toRTimeZone(timeZones[i])).append("');");
+                    break;
+                case DURATION:
+                    script.append(col).append("<-.difftime(").append(col).append(",units='secs');");
+                    break;
+                default:
+            }
+        }
+        return script.toString();
+    }
+
+    /**
+     * @return name of the time zone for R, which only knows region based zone IDs
+     */
+    private static String toRTimeZone(final ZoneId zone) {
+        if ((zone == null) || (zone instanceof ZoneOffset)) {
+            // the instant is kept, but R cannot represent fixed offsets
+            return "Etc/UTC";
+        }
+        if ("UTC".equals(zone.getId())) {
+            // "UTC" marks local date times, see getRTimeZone(REXP)
+            return "Etc/UTC";
+        }
+        return zone.getId().replace("'", "");
     }
 
-    /** Map of type to a R expression which creates a column vector for that type */
-    private static final Map<Class<? extends DataValue>, String> DATA_TYPE_TO_R_CONSTRUCTOR;
+    /**
+     * Determine the type each column of the table is sent as. String columns with {@link StringEncoding#AUTO} are sent
+     * as factor if their domain lists possible values (i.e. there are few of them), otherwise the first rows of the
+     * table are sampled: columns with many and mostly distinct values are sent as character vectors, for which a factor
+     * dictionary would only add overhead.
+     */
+    private static ExportType[] getExportTypes(final BufferedDataTable table, final RDataTransferSettings settings)
+        throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final ExportType[] exportTypes = new ExportType[spec.getNumColumns()];
+        final List<Integer> sampledColumns = new ArrayList<>();
+        for (int i = 0; i < exportTypes.length; i++) {
+            final DataColumnSpec columnSpec = spec.getColumnSpec(i);
+            final DataType type = columnSpec.getType();
+            if (settings.getSendSparseMatrices() && type.isCompatible(BitVectorValue.class)) {
+                exportTypes[i] = ExportType.SPARSE;
+            } else if (type.isCollectionType()) {
+                exportTypes[i] = ExportType.LIST;
+            } else if (type.isCompatible(BooleanValue.class)) {
+                exportTypes[i] = ExportType.LOGICAL;
+            } else if (type.isCompatible(IntValue.class)) {
+                exportTypes[i] = ExportType.INTEGER;
+            } else if (type.isCompatible(LongValue.class)) {
+                exportTypes[i] = ExportType.INTEGER64;
+            } else if (type.isCompatible(DoubleValue.class)) {
+                exportTypes[i] = ExportType.DOUBLE;
+            } else if (type.isCompatible(LocalDateValue.class)) {
+                exportTypes[i] = ExportType.DATE;
+            } else if (type.isCompatible(LocalDateTimeValue.class)) {
+                exportTypes[i] = ExportType.LOCAL_DATE_TIME;
+            } else if (type.isCompatible(ZonedDateTimeValue.class)) {
+                exportTypes[i] = ExportType.ZONED_DATE_TIME;
+            } else if (type.isCompatible(DurationValue.class)) {
+                exportTypes[i] = ExportType.DURATION;
+            } else {
+                final StringEncoding encoding = settings.getStringEncoding(columnSpec.getName());
+                if (encoding == StringEncoding.CHARACTER) {
+                    exportTypes[i] = ExportType.CHARACTER;
+                } else if (encoding == StringEncoding.FACTOR || columnSpec.getDomain().hasValues()) {
+                    exportTypes[i] = ExportType.FACTOR;
+                } else {
+                    exportTypes[i] = ExportType.FACTOR;
+                    sampledColumns.add(i);
+                }
+            }
+        }
 
-    private static final AtomicInteger R_THREAD_POOL_INDEX = new AtomicInteger();
+        if (sampledColumns.isEmpty() || table.size() == 0) {
+            return exportTypes;
+        }
 
-    private static final ExecutorService R_THREAD_POOL = new ThreadPoolExecutor(0,
-        Runtime.getRuntime().availableProcessors(), 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
-        r -> new Thread(r, "R-DataExchange-" + R_THREAD_POOL_INDEX.getAndIncrement()));
+        final int sampleRows = Math.max(1, Math.min(STRING_SAMPLE_ROWS, STRING_SAMPLE_CELLS / sampledColumns.size()));
+        final int[] columns = sampledColumns.stream().mapToInt(Integer::intValue).toArray();
+        @SuppressWarnings("unchecked")
+        final Set<String>[] distinctValues = new Set[columns.length];
+        final int[] nonMissing = new int[columns.length];
+        Arrays.setAll(distinctValues, i -> new HashSet<>());
+        try (final CloseableRowIterator iterator = table.iterator()) {
+            for (int r = 0; r < sampleRows && iterator.hasNext(); r++) {
+                final DataRow row = iterator.next();
+                for (int i = 0; i < columns.length; i++) {
+                    final DataCell cell = row.getCell(columns[i]);
+                    if (!cell.isMissing()) {
+                        nonMissing[i]++;
+                        distinctValues[i].add(exportStringValue(cell));
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            final int distinct = distinctValues[i].size();
+            if (distinct >= CHARACTER_MIN_DISTINCT && distinct >= CHARACTER_MIN_DISTINCT_RATIO * nonMissing[i]) {
+                exportTypes[columns[i]] = ExportType.CHARACTER;
+            }
+        }
+        return exportTypes;
+    }
 
-    static {
-        final Map<Class<? extends DataValue>, String> tmp = new HashMap<>();
+    /**
+     * Send the rows of a table to R in batches, filling the R columns allocated in <code>cols</code>. The table is read
+     * on a separate thread, which fills one batch while the previous one is being sent, the batches are reused.
+     *
+     * @param table the table to send
+     * @param shared column types and whether to send row names into <code>knime.row.names</code>, its time zones are
+     *            filled with the time zone of the first value of each zoned date time column
+     * @param batchSize number of rows of the first batch, following batches are sized by a {@link ChunkPlanner}
+     * @param exec for progress and cancellation
+     * @return a summary of the time spent waiting for R and for the table, <code>null</code> if the table is empty
+     */
+    private String sendBatches(final BufferedDataTable table, final SharedBatchState shared, final int batchSize,
+        final ExecutionMonitor exec) throws RException, CanceledExecutionException {
+        final ExportType[] exportTypes = shared.m_exportTypes;
+        final boolean sendRowNames = shared.m_sendRowNames;
+        final long rowCount = table.size();
+        if (rowCount == 0) {
+            return null;
+        }
 
-        tmp.put(IntValue.class, "integer(rowCount)");
-        tmp.put(BooleanValue.class, "logical(rowCount)");
-        tmp.put(DoubleValue.class, "double(rowCount)");
-        /* For character default value is "", which would create a "" level. */
-        tmp.put(StringValue.class, "factor(as.character(rep(NA, rowCount)))");
-        tmp.put(CollectionDataValue.class, "vector(mode='list', length=rowCount)");
+        final long bytesPerRow =
+            Stream.of(exportTypes).mapToLong(t -> t.m_bytes).sum() + (sendRowNames ? ROW_NAME_BYTES : 0);
+        final boolean hasPackedColumns = Stream.of(exportTypes).anyMatch(t -> Batch.getPackedWidth(t) > 0);
+        final boolean hasListColumns = Stream.of(exportTypes).anyMatch(t -> t == ExportType.LIST);
+        final boolean hasSparseColumns = Stream.of(exportTypes).anyMatch(t -> t == ExportType.SPARSE);
+        final int maxRows =
+            (int)Math.min(Integer.MAX_VALUE - 8, getTransferMemoryBudget() / (NUM_SEND_BUFFERS * bytesPerRow));
+        if (shared.m_sharedMemoryDir != null) {
+            // Writing beyond the space of a memory-mapped file crashes instead of failing, e.g. for a small /dev/shm
+            // in a container. Send the columns over the Rserve connection if the largest batches might not fit.
+            final long packedBytesPerRow = Stream.of(exportTypes).mapToLong(Batch::getPackedWidth).sum();
+            final long requiredBytes =
+                NUM_SEND_BUFFERS * packedBytesPerRow * Math.min(Math.max(maxRows, batchSize), rowCount);
+            final long usableBytes = PackedColumns.getUsableSpace(shared.m_sharedMemoryDir);
+            if (usableBytes < requiredBytes) {
+                LOGGER.debugWithFormat("Only %d of %d bytes available in \"%s\", sending rows over the Rserve "
+                    + "connection.", usableBytes, requiredBytes, shared.m_sharedMemoryDir);
+                shared.m_sharedMemoryDir = null;
+            }
+        }
+        // Columns in memory-mapped files do not count towards the size of the messages sent to Rserve
+        final long messageBytesPerRow = shared.m_sharedMemoryDir == null ? bytesPerRow
+            : Math.max(1, Stream.of(exportTypes).filter(t -> Batch.getPackedWidth(t) == 0).mapToLong(t -> t.m_bytes)
+                .sum() + (sendRowNames ? ROW_NAME_BYTES : 0));
+        final ChunkPlanner planner = new ChunkPlanner(batchSize, maxRows, messageBytesPerRow);
+
+        // All batches ever allocated, closed once the transfer is done to delete their memory-mapped files
+        final Collection<Batch> allBatches = Collections.synchronizedList(new ArrayList<>());
+        final BlockingQueue<Batch> freeBatches = new ArrayBlockingQueue<>(NUM_SEND_BUFFERS);
+        final BlockingQueue<Batch> filledBatches = new ArrayBlockingQueue<>(NUM_SEND_BUFFERS);
+        for (int i = 0; i < NUM_SEND_BUFFERS; i++) {
+            final Batch batch = createBatch((int)Math.min(planner.getChunkSize(), rowCount), shared);
+            allBatches.add(batch);
+            freeBatches.add(batch);
+        }
 
-        DATA_TYPE_TO_R_CONSTRUCTOR = Collections.unmodifiableMap(tmp);
-    }
+        // Claimed by the reader when it starts, or by the sender to keep a reader which did not start from running
+        final AtomicBoolean readerClaimed = new AtomicBoolean();
+        final CountDownLatch readerDone = new CountDownLatch(1);
 
-    /* This class ties together all variables concerning a single batch */
-    private static final class Batch {
-        final int m_size;
+        // Reads the table into free batches, returns the nanoseconds spent waiting for a free batch
+        final Callable<Long> reader = ThreadUtils.callableWithContext(() -> {
+            if (!readerClaimed.compareAndSet(false, true)) {
+                return 0L;
+            }
+            try {
+                long waitNanos = 0;
+                long rowIndex = 0;
+
+                // variables for "Rows per second" debug output
+                long timeSinceUpdate = System.currentTimeMillis();
+                int rowsSinceUpdate = 0;
+
+                Batch batch = null;
+                try (final CloseableRowIterator iterator = table.iterator()) {
+                    while (iterator.hasNext()) {
+                        // The following block prints the amount of rows read every second for a rough estimate while
+                        // benchmarking
+                        if ((System.currentTimeMillis() - timeSinceUpdate) > 1000) {
+                            LOGGER.debugWithFormat("Rows per second: %d", rowsSinceUpdate);
+                            rowsSinceUpdate = 0;
+                            timeSinceUpdate = System.currentTimeMillis();
+                        } else {
+                            ++rowsSinceUpdate;
+                        }
 
-        /** Size of this batch */
-        int m_index = 0;
+                        if (batch == null) {
+                            final long waitStart = System.nanoTime();
+                            batch = freeBatches.take();
+                            waitNanos += System.nanoTime() - waitStart;
+
+                            // Reallocate the batch if its size does not fit the planned size anymore
+                            final int rows = (int)Math.min(planner.getChunkSize(), rowCount - rowIndex);
+                            if ((batch.m_size < rows) || (batch.m_size > (2L * rows))) {
+                                allBatches.remove(batch);
+                                batch.close();
+                                batch = createBatch(rows, shared);
+                                allBatches.add(batch);
+                            }
+                            batch.m_limit = rows;
+                            batch.m_index = 0;
+                            batch.m_bytes = 0;
+                            batch.m_start = rowIndex;
+                        }
 
-        /** Current row index for writing to */
+                        batch.addRow(iterator.next());
+                        ++rowIndex;
+
+                        // Rows may be larger than estimated, e.g. for long strings, end the batch before its
+                        // message gets too large
+                        if ((batch.m_index == batch.m_limit) || (rowIndex == rowCount)
+                            || (batch.m_bytes >= planner.getMaxChunkBytes())) {
+                            // Batch full or end of table
+                            batch.prepareForSending(); /* Encode list columns, send levels added during this batch */
+                            // size the next batches by the measured rather than the estimated size of the rows
+                            planner.setBytesPerRow(batch.m_bytes / batch.m_index);
+                            filledBatches.put(batch);
+                            batch = null;
+                        }
+                    }
+                }
+                return waitNanos;
+            } finally {
+                readerDone.countDown();
+            }
+        });
 
-        final RList m_rBatch; // List containing rColumns
+        final ThreadPool threadPool = ThreadPool.currentPool();
+        final Future<Long> readerFuture =
+            threadPool != null ? threadPool.enqueue(reader) : R_THREAD_POOL.submit(reader);
 
-        final REXPString m_rRowNames;
+        final double numRows = rowCount; // for progress reporting only
+        long sentRows = 0;
+        long senderWaitNanos = 0;
+        try {
+            while (sentRows < rowCount) {
+                final long waitStart = System.nanoTime();
+                Batch batch;
+                while ((batch = filledBatches.poll(MONITOR_INTERVAL, TimeUnit.MILLISECONDS)) == null) {
+                    exec.checkCanceled();
+                    if (readerFuture.isDone()) {
+                        readerFuture.get(); // rethrows failures of the reader
+                        throw new IllegalStateException("Table contains less rows than expected.");
+                    }
+                }
+                senderWaitNanos += System.nanoTime() - waitStart;
 
-        final REXPGenericVector m_rVector;
+                final long sendStart = System.nanoTime();
+                assign("bt", batch.m_rVector);
 
-        final Map<Integer, LinkedHashMap<String, Integer>> m_factorLevels = new HashMap<>();
+                final long start = batch.m_start + 1;
+                final long end = batch.m_start + batch.m_index;
+
+                final StringBuilder copyScript = new StringBuilder();
+                final String rowNamesIndex;
+                if (batch.m_values != null) {
+                    /* All columns are doubles, sent as a single vector. Reshape it into a matrix and copy its
+                     * columns into the final table. */
+                    copyScript.append("knime.m<-bt[[1]];dim(knime.m)<-c(").append(batch.m_size)
+                        .append(",colCount);for(i in 1:colCount){cols[[i]][").append(start).append(':').append(end)
+                        .append("]<-knime.m[1:").append(batch.m_index).append(",i]};rm(knime.m)");
+                    rowNamesIndex = "2";
+                } else {
+                    /* Assign data from chunk/batch to final table column-wise. Factor codes are copied like integers,
+                     * new levels are only appended to the list of level chunks, which is combined once all rows are
+                     * sent. */
+                    copyScript.append("if(length(bt[[colCount+2]])>0){"
+                        + "knime.level.chunks[[length(knime.level.chunks)+1]]<-bt[[colCount+2]]};");
+                    if (hasPackedColumns) {
+                        /* Fixed-width columns are read from the packed raw vector or the memory-mapped file in column
+                         * order. The bytes of 64-bit integers are read as doubles without conversion, as bit64 stores
+                         * them. */
+                        final File file = batch.m_packed.getFile();
+                        copyScript.append(file == null ? "knime.con<-rawConnection(bt[[colCount+3]]);"
+                            : ("knime.con<-file(\"" + file.getAbsolutePath().replace('\\', '/') + "\",'rb');"))
+                            .append("for(i in knime.packed.cols){cols[[i]][").append(start).append(':').append(end)
+                            .append("]<-readBin(knime.con,knime.col.types[[i]],n=").append(batch.m_size)
+                            .append(",endian='little')[1:").append(batch.m_index)
+                            .append("]};close(knime.con);rm(knime.con);");
+                    }
+                    if (hasListColumns) {
+                        // List columns are collected and rebuilt once all rows are sent, as they may become matrices
+                        copyScript.append("knime.list.chunks[[length(knime.list.chunks)+1]]<-bt[knime.list.cols];");
+                    }
+                    if (hasSparseColumns) {
+                        // Set bits are collected and turned into sparse matrices once all rows are sent
+                        copyScript.append(
+                            "knime.sparse.chunks[[length(knime.sparse.chunks)+1]]<-bt[knime.sparse.cols];");
+                    }
+                    copyScript.append("for(i in knime.copy.cols){cols[[i]][").append(start).append(':').append(end)
+                        .append("]<-bt[[i]][1:").append(batch.m_index).append("]}");
+                    rowNamesIndex = "colCount+1";
+                }
+                if (batch.hasRowNames()) {
+                    if (!shared.m_rowNamesAllocated) {
+                        // First batch with keys not matching the pattern, create the keys of the previous rows
+                        final RowKeyPattern pattern = shared.m_rowKeyPattern;
+                        if (pattern.hasPrefix()) {
+                            assign("knime.row.key.prefix", new REXPString(pattern.m_prefix));
+                        }
+                        copyScript.append(";knime.row.names<-character(rowCount)");
+                        if (start > 1) {
+                            copyScript.append(";knime.row.names[1:").append(start - 1).append("]<-")
+                                .append(pattern.createKeysExpression(start - 1));
+                        }
+                        shared.m_rowNamesAllocated = true;
+                    }
+                    copyScript.append(";knime.row.names[").append(start).append(':').append(end).append("]<-bt[[")
+                        .append(rowNamesIndex).append("]][1:").append(batch.m_index).append(']');
+                }
+                eval(copyScript.toString(), false);
+                planner.chunkDone(batch.m_index, System.nanoTime() - sendStart);
 
-        final Map<Integer, int[]> m_factorIndices = new HashMap<>();
+                sentRows += batch.m_index;
+                freeBatches.add(batch);
 
-        /**
-         * @param numRows Number of rows for this batch.
-         * @param columnCount Number of columns.
-         */
-        public Batch(final int numRows, final int columnCount) {
-            m_size = numRows;
+                exec.checkCanceled();
+                exec.setProgress(sentRows / numRows);
+            }
 
-            m_rRowNames = new REXPString(new String[numRows]);
-            m_rBatch = new RList(columnCount + 1, false);
-            m_rVector = new REXPGenericVector(m_rBatch);
+            final long readerWaitNanos = readerFuture.get();
+            // Shows whether R or reading the table limited the transfer
+            final String summary = String.format("Sent %d rows to R. Reading the table waited %d ms for R, "
+                + "sending to R waited %d ms for the table.", rowCount, TimeUnit.NANOSECONDS.toMillis(readerWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(senderWaitNanos));
+            LOGGER.debug(summary);
+            return summary;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RException("Interrupted while sending rows to R.", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            }
+            throw new RException("Error while reading rows of the input table: " + cause.getMessage(), cause);
+        } finally {
+            readerFuture.cancel(true);
+            if (!readerClaimed.compareAndSet(false, true)) {
+                // The reader may still be writing into the batches, wait for it before closing them
+                awaitUninterruptibly(readerDone);
+            }
+            allBatches.forEach(Batch::close);
         }
+    }
 
-        /**
-         * Create REXPFactor instance from levels (String[]) and indices (int[]) for every factor column.
-         */
-        public void postProcessFactorColumns() {
-            for (final Map.Entry<Integer, LinkedHashMap<String, Integer>> entry : m_factorLevels.entrySet()) {
-                final int columnIndex = entry.getKey();
-                final LinkedHashMap<String, Integer> factorLevels = entry.getValue();
-
-                final String[] levels = factorLevels.keySet().stream().toArray(n -> new String[n]);
-                final int[] indices = m_factorIndices.get(columnIndex);
-
-                /* Create a REXP factor for this batch without copying the indices and levels */
-                final REXPFactor factor = new REXPFactor(new RFactor(indices, levels, false, 1));
-                m_rBatch.set(columnIndex, factor);
+    /**
+     * Wait for a latch, keeping the interrupted state of the thread.
+     */
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
             }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public void monitoredAssign(final String name, final BufferedDataTable table, final ExecutionMonitor exec,
-        final int batchSize, final String rType, final boolean sendRowNames)
-        throws RException, CanceledExecutionException {
+        final RDataTransferSettings settings) throws RException, CanceledExecutionException {
+        final int batchSize = settings.getBatchSize();
+        final String rType = settings.getRType();
+        final boolean sendRowNames = settings.getSendRowNames();
 
         final int rowCount = KnowsRowCountTable.checkRowCount(table.size());
         final int columnCount = table.getDataTableSpec().getNumColumns();
@@ -1020,11 +2890,25 @@ public void monitoredAssign(final String name, final BufferedDataTable table, fi
             return;
         }
 
-        assign("rowCount", new REXPInteger(rowCount));
-        assign("colCount", new REXPInteger(columnCount));
-
-        @SuppressWarnings("unchecked")
-        final Class<? extends DataValue>[] dataValueClasses = new Class[columnCount]; // type of each column
+        exec.setMessage("Analyzing columns.");
+        final ExportType[] exportTypes = getExportTypes(table, settings); // type of each column
+        if (Stream.of(exportTypes).anyMatch(t -> t == ExportType.INTEGER64) && !isPackageAvailable("bit64")) {
+            // Without bit64, long columns are sent as doubles, losing precision above 2^53
+            LOGGER.debug("R package \"bit64\" is not available, sending long columns as double.");
+            for (int i = 0; i < exportTypes.length; i++) {
+                if (exportTypes[i] == ExportType.INTEGER64) {
+                    exportTypes[i] = ExportType.DOUBLE;
+                }
+            }
+        }
+        if (Stream.of(exportTypes).anyMatch(t -> t == ExportType.SPARSE) && !isPackageAvailable("Matrix")) {
+            LOGGER.warn("R package \"Matrix\" is not available, sending bit vector columns as strings.");
+            for (int i = 0; i < exportTypes.length; i++) {
+                if (exportTypes[i] == ExportType.SPARSE) {
+                    exportTypes[i] = ExportType.CHARACTER;
+                }
+            }
+        }
 
         /*
          * Allocate the memory for the columns on R side.
@@ -1032,15 +2916,14 @@ public void monitoredAssign(final String name, final BufferedDataTable table, fi
          */
         exec.setMessage("Allocating memory for R columns.");
 
-        // Create cols variable (array of column vectors), will be coerced to data.frame later.
-        eval("cols<-list(length=colCount)", false);
-
-        // Script for removing temporary variables
-        final StringBuilder cleanupScript =
-            new StringBuilder("rm(knime.row.names,knime.col.names,bt,i,rowCount,colCount,cols");
+        // Temporary variables which are removed at the end, a set since several steps share helper variables
+        final Set<String> cleanupVariables = new LinkedHashSet<>(Arrays.asList("knime.col.names", "knime.col.types",
+            "knime.level.chunks", "knime.levels", "knime.factor.cols", "knime.packed.cols", "knime.list.cols",
+            "knime.sparse.cols", "knime.copy.cols", "knime.list.chunks", "knime.sparse.chunks", "bt", "i", "rowCount",
+            "colCount", "cols"));
 
         // script for combining the individual columns into a data.frame (or data.table)
-        final boolean useDataTable = "data.table".equals(rType);
+        final boolean useDataTable = RDataTransferSettings.DATA_TABLE.equals(rType);
         if (useDataTable) {
             final REXP ret = eval("require('data.table')", true);
             try {
@@ -1053,239 +2936,141 @@ public void monitoredAssign(final String name, final BufferedDataTable table, fi
             }
             LOGGER.debug("Using experimental support for sending data as \"data.table\".");
         }
-
-        // Variables concerning a single batch
-        final Batch batch = new Batch(Math.min(batchSize, rowCount), columnCount);
-
-        // Get type of each column and generate R code which creates an appropriate column
-        int columnIndex = 0;
-        for (final DataColumnSpec columnSpec : table.getDataTableSpec()) {
-            final String columnVar = "cols[[" + (columnIndex + 1) + "]]";
-
-            final DataType type = columnSpec.getType();
-            Class<? extends DataValue> dataValueClass;
-            if (type.isCollectionType()) {
-                dataValueClass = CollectionDataValue.class;
-            } else {
-                if (type.isCompatible(BooleanValue.class)) {
-                    dataValueClass = BooleanValue.class;
-                } else if (type.isCompatible(IntValue.class)) {
-                    dataValueClass = IntValue.class;
-                } else if (type.isCompatible(DoubleValue.class)) {
-                    dataValueClass = DoubleValue.class;
-                } else {
-                    dataValueClass = StringValue.class;
-                }
-            }
-            dataValueClasses[columnIndex] = dataValueClass;
-            final String constructor = DATA_TYPE_TO_R_CONSTRUCTOR.get(dataValueClass);
-            if (dataValueClass == CollectionDataValue.class) {
-                eval(columnVar + "<-I(" + constructor + ")", false); // Allocate vector for column, e.g.: c10 <- double(12345)
-            } else {
-                eval(columnVar + "<-" + constructor, false); // Allocate vector for column, e.g.: c10 <- double(12345)
-            }
-
-            // Prepare KNIME side batch for this column
-            if (dataValueClass == CollectionDataValue.class) {
-                final RList col = new RList(batch.m_size, false);
-                IntStream.range(0, batch.m_size).forEach(i -> col.add(null));
-                batch.m_rBatch.add(new REXPGenericVector(col));
-            } else if (dataValueClass == BooleanValue.class) {
-                batch.m_rBatch.add(new REXPLogical(new byte[batch.m_size]));
-            } else if (dataValueClass == IntValue.class) {
-                batch.m_rBatch.add(new REXPInteger(new int[batch.m_size]));
-            } else if (dataValueClass == DoubleValue.class) {
-                batch.m_rBatch.add(new REXPDouble(new double[batch.m_size]));
-            } else if (dataValueClass == StringValue.class) {
-                /* Create index array and level map for factor columns */
-                final int[] indices = new int[batch.m_size]; /* Will be reused every batch */
-                final String[] levels = new String[0]; /* No levels yet and not reused */
-
-                batch.m_factorIndices.put(columnIndex, indices);
-                batch.m_factorLevels.put(columnIndex, new LinkedHashMap<String, Integer>());
-
-                batch.m_rBatch.add(new REXPFactor(new RFactor(indices, levels, false, 1)));
-            } else {
-                batch.m_rBatch.add(new REXPString(new String[batch.m_size]));
+        final boolean useArrow = RDataTransferSettings.ARROW_TABLE.equals(rType);
+        if (useArrow) {
+            if (!isPackageAvailable("arrow")) {
+                throw new RException("Selected Arrow Table as type for \"" + name
+                    + "\", but package \"arrow\" could not be found.", null);
             }
+            LOGGER.debug("Using experimental support for sending data as Arrow Table.");
+        }
 
-            columnIndex++;
-
-            exec.checkCanceled(); // Useful for many many rows
+        // Arrow Tables are created from a data.frame in any case, which is read at once if possible
+        if ((settings.getTransferEngine() == TransferEngine.SERIALIZATION) || useArrow) {
+            if (Stream.of(exportTypes).noneMatch(t -> (t == ExportType.LIST) || (t == ExportType.SPARSE))) {
+                assignSerialized(name, table, exportTypes, sendRowNames, rType, exec);
+                return;
+            }
+            LOGGER.debug("Table contains collection or bit vector columns, sending it in batches.");
         }
 
-        if (sendRowNames) {
-            // Allocate vector for row names on R side
-            eval("knime.row.names<-character(rowCount)", false);
-            cleanupScript.append(",knime.row.names");
+        assign("rowCount", new REXPInteger(rowCount));
+        assign("colCount", new REXPInteger(columnCount));
 
-            // And on KNIME side
-            batch.m_rBatch.add(batch.m_rRowNames);
-        }
+        // Create cols variable (array of column vectors), will be coerced to data.frame later. All columns are
+        // allocated in a single call from the vector of their modes, e.g. cols[[10]] <- vector("double", 12345)
+        // Levels of factor columns are collected in knime.level.chunks, one element per batch.
+        assign("knime.col.types", new REXPString(Stream.of(exportTypes).map(t -> t.m_mode).toArray(String[]::new)));
+        final StringBuilder allocationScript = new StringBuilder("cols<-lapply(knime.col.types,function(t){"
+            + "if(t=='list')I(vector(mode='list',length=rowCount))else if(t=='NULL')NULL "
+            + "else vector(mode=t,length=rowCount)});"
+            + "knime.level.chunks<-list();knime.list.chunks<-list();knime.sparse.chunks<-list()");
+        eval(allocationScript.toString(), false);
+        exec.checkCanceled();
+
+        // Indices of factor columns (R indices start at 1)
+        final int[] factorColumns = IntStream.range(0, columnCount).filter(i -> exportTypes[i] == ExportType.FACTOR)
+            .map(i -> i + 1).toArray();
 
         exec.setMessage("Sending column names.");
         // transfer column names to Rserve
         monitoredAssign("knime.col.names", new REXPString(table.getDataTableSpec().getColumnNames()), exec);
-
-        if (useDataTable) {
-            // Create data.table now, we will use set(table, column, row, newData) to set values in the table directly
-            try {
-                monitoredEval("library(data.table);" + name + "<-as.data.table(cols, check.names=FALSE);names(" + name
-                    + ")<-knime.col.names", exec, false);
-            } catch (final InterruptedException e) {
-                throw new RException("Interrupted while creating data.table and assigning column names.", e);
-            }
-        }
+        assign("knime.factor.cols", new REXPInteger(factorColumns));
+        assign("knime.packed.cols", new REXPInteger(IntStream.range(0, columnCount)
+            .filter(i -> Batch.getPackedWidth(exportTypes[i]) > 0).map(i -> i + 1).toArray()));
+        assign("knime.list.cols", new REXPInteger(IntStream.range(0, columnCount)
+            .filter(i -> exportTypes[i] == ExportType.LIST).map(i -> i + 1).toArray()));
+        assign("knime.sparse.cols", new REXPInteger(IntStream.range(0, columnCount)
+            .filter(i -> exportTypes[i] == ExportType.SPARSE).map(i -> i + 1).toArray()));
+        assign("knime.copy.cols", new REXPInteger(IntStream.range(0, columnCount)
+            .filter(i -> (exportTypes[i] == ExportType.CHARACTER)).map(i -> i + 1).toArray()));
 
         /*
          * Send rows to R in batches
          */
         exec.setMessage("Sending rows to R.");
 
-        final double numRows = table.size(); // for progress reporting only
-        long rowIndex = 0;
-
-        // variables for "Rows per second" debug output
-        long timeSinceUpdate = System.currentTimeMillis();
-        int rowsSinceUpdate = 0;
-
-        for (final DataRow row : table) {
-
-            // The following block prints the amount of rows sent every second for a rough estimate while benchmarking
-            if ((System.currentTimeMillis() - timeSinceUpdate) > 1000) {
-                LOGGER.debugWithFormat("Rows per second: %d", rowsSinceUpdate);
-                rowsSinceUpdate = 0;
-                timeSinceUpdate = System.currentTimeMillis();
+        final DataTableSpec spec = table.getDataTableSpec();
+        final ExportType[] listElementTypes = IntStream.range(0, columnCount)
+            .mapToObj(
+                i -> exportTypes[i] == ExportType.LIST ? getListElementType(spec.getColumnSpec(i).getType()) : null)
+            .toArray(ExportType[]::new);
+        final SharedBatchState shared = new SharedBatchState(exportTypes, listElementTypes, sendRowNames, rowCount);
+        final String summary = sendBatches(table, shared, batchSize, exec);
+
+        boolean setRowNames = sendRowNames;
+        final RowKeyPattern pattern = shared.m_rowKeyPattern;
+        if (sendRowNames && !shared.m_rowNamesAllocated) {
+            // All keys follow a pattern, e.g. Row0, Row1, ..., create them in R
+            if (pattern.m_prefix == null) {
+                eval("knime.row.names<-character(0)", false);
+            } else if (pattern.isAutomatic()) {
+                // keys 1, 2, ..., n are R's default row names, which are stored compactly
+                setRowNames = false;
             } else {
-                ++rowsSinceUpdate;
-            }
-
-            if (sendRowNames) {
-                batch.m_rRowNames.asStrings()[batch.m_index] = row.getKey().getString();
-            }
-
-            // Assign the values of the current row to the batch
-            int c = 0; // columnIndex
-            for (final DataCell cell : row) {
-                final Class<? extends DataValue> type = dataValueClasses[c];
-
-                try {
-                    if (type == CollectionDataValue.class) {
-                        REXP value;
-                        // try get value from collection cell
-                        if (cell.isMissing()) {
-                            value = null;
-                        } else {
-                            final CollectionDataValue collValue = (CollectionDataValue)cell;
-                            final DataType elementType = cell.getType().getCollectionElementType();
-                            if (elementType.isCompatible(BooleanValue.class)) {
-                                final byte[] elementValue = new byte[collValue.size()];
-                                int i = 0;
-                                for (final DataCell e : collValue) {
-                                    elementValue[i] = exportBooleanValue(e);
-                                    ++i;
-                                }
-                                value = new REXPLogical(elementValue);
-
-                            } else if (elementType.isCompatible(IntValue.class)) {
-                                final int[] elementValue =
-                                    collValue.stream().mapToInt(RController::exportIntValue).toArray();
-                                value = new REXPInteger(elementValue);
-                            } else if (elementType.isCompatible(DoubleValue.class)) {
-                                final double[] elementValue =
-                                    collValue.stream().mapToDouble(RController::exportDoubleValue).toArray();
-                                value = new REXPDouble(elementValue);
-                            } else {
-                                final String[] elementValue =
-                                    collValue.stream().map(RController::exportStringValue).toArray(String[]::new);
-                                value = new REXPString(elementValue);
-                            }
-                        }
-                        ((REXP)batch.m_rBatch.get(c)).asList().set(batch.m_index, value);
-                    } else {
-                        final REXP curREXP = (REXP)batch.m_rBatch.get(c);
-                        if (type.equals(BooleanValue.class)) {
-                            curREXP.asBytes()[batch.m_index] = exportBooleanValue(cell);
-                        } else if (type.equals(IntValue.class)) {
-                            curREXP.asIntegers()[batch.m_index] = exportIntValue(cell);
-                        } else if (type.equals(DoubleValue.class)) {
-                            curREXP.asDoubles()[batch.m_index] = exportDoubleValue(cell);
-                        } else if (type.equals(StringValue.class)) {
-                            final LinkedHashMap<String, Integer> factors = batch.m_factorLevels.get(c);
-                            int index = REXPInteger.NA;
-                            if (!cell.isMissing()) {
-                                /* Get factor index for the value */
-                                final String value = ((StringValue)cell).getStringValue();
-                                final Integer idx = factors.get(value);
-                                if (idx == null) {
-                                    /* First occurance of this string value, add it to map of factor levels */
-                                    index = factors.size() + 1; // R indices are base 1
-                                    factors.put(value, index);
-                                } else {
-                                    index = idx;
-                                }
-                            }
-                            batch.m_factorIndices.get(c)[batch.m_index] = index;
-                        } else {
-                            curREXP.asStrings()[batch.m_index] = exportStringValue(cell);
-                        }
-                    }
-                } catch (final REXPMismatchException e) {
-                    // Will never happen, the REXPs types are added according to column types.
-                    throw new IllegalStateException(e);
+                if (pattern.hasPrefix()) {
+                    assign("knime.row.key.prefix", new REXPString(pattern.m_prefix));
                 }
-                ++c;
+                eval("knime.row.names<-" + pattern.createKeysExpression(rowCount), false);
             }
-
-            ++batch.m_index;
-            if ((batch.m_index == batch.m_size) || ((batch.m_index + rowIndex) == rowCount)) {
-                // Batch full or end of table
-
-                batch.postProcessFactorColumns(); /* Create REXPFactor from int[] and level hash map */
-
-                assign("bt", batch.m_rVector);
-
-                final long start = rowIndex + 1;
-                final long end = rowIndex + batch.m_index;
-
-                /* Assign data from chunk/batch to final table column-wise. If it's a factor column, we need to grow the level set, otherwise values will end up as NA */
-                if (useDataTable) {
-                    eval("for(i in 1:colCount){if(is.factor(bt[[i]])){levels(" + name + "[[i]])<-levels(bt[[i]])};set("
-                        + name + "," + start + ":" + end + ",i,bt[i])}", false);
-                } else {
-                    eval("for(i in 1:colCount){if(is.factor(bt[[i]])){levels(cols[[i]])<-levels(bt[[i]])};cols[[i]]["
-                        + start + ":" + end + "]<-bt[[i]][1:" + batch.m_index + "]}", false);
-                }
-
-                if (sendRowNames) {
-                    eval("knime.row.names[" + start + ":" + end + "]<-bt[[colCount+1]][1:" + batch.m_index + "]",
-                        false);
-                }
-
-                // Not relevant if batch.index+rowIndex == rowCount
-                rowIndex += batch.m_size;
-                batch.m_index = 0;
-
-                exec.checkCanceled();
-                exec.setProgress(rowIndex / numRows);
+        }
+        // Only remove the row name variables which were created, either above or while sending the rows
+        if (setRowNames) {
+            cleanupVariables.add("knime.row.names");
+            if (pattern.hasPrefix()) {
+                cleanupVariables.add("knime.row.key.prefix");
             }
         }
 
         try {
+            if ((rowCount > 0) && Stream.of(exportTypes).anyMatch(t -> t == ExportType.LIST)) {
+                // If enabled, numeric collections of the same length in every row become matrix columns of a
+                // data.frame. data.table and Arrow do not support matrix columns, there they stay lists.
+                final boolean sendMatrixColumns = settings.getSendMatrixColumns() && !useDataTable && !useArrow;
+                assign("knime.matrix.cols", new REXPInteger(IntStream.range(0, columnCount)
+                    .filter(i -> sendMatrixColumns && isMatrixColumn(shared, i)).map(i -> i + 1).toArray()));
+                monitoredEval(createListColumnScript(), exec, false);
+                cleanupVariables.addAll(Arrays.asList("knime.matrix.cols", "knime.n", "knime.v", "j"));
+            }
+            // Materialize the level set and turn the factor codes into factors. The levels of a column are in order
+            // of first occurrence in that column, its codes are remapped with match() into its own levels.
+            monitoredEval("knime.u<-NULL;knime.levels<-as.character(unlist(knime.level.chunks,use.names=FALSE));"
+                + "for(i in knime.factor.cols){"
+                + "knime.u<-unique(cols[[i]]);knime.u<-knime.u[!is.na(knime.u)];"
+                + "cols[[i]]<-structure(match(cols[[i]],knime.u),levels=knime.levels[knime.u],class='factor')};"
+                + "rm(knime.u)", exec, false);
+            final String classScript = createClassScript(exportTypes, shared.m_timeZones);
+            if (!classScript.isEmpty()) {
+                monitoredEval(classScript, exec, false);
+            }
+            if (Stream.of(exportTypes).anyMatch(t -> t == ExportType.SPARSE)) {
+                // Bit vector columns become sparse matrices next to the table and are removed from it
+                assign("knime.sparse.ncols", new REXPInteger(IntStream.range(0, columnCount)
+                    .filter(i -> exportTypes[i] == ExportType.SPARSE)
+                    .map(i -> (int)shared.m_bitVectorLengths[i]).toArray()));
+                monitoredEval(createSparseMatrixScript(name), exec, false);
+                cleanupVariables.addAll(Arrays.asList("knime.sparse.ncols", "knime.n", "j"));
+            }
             if (useDataTable) {
+                // Coerce columns to data.table by reference
+                monitoredEval("library(data.table);" + name + "<-setDT(cols);setnames(" + name + ",knime.col.names)",
+                    exec, false);
                 // Assign row names if sent
-                if (sendRowNames) {
+                if (setRowNames) {
                     monitoredEval("row.names(" + name + ")<-knime.row.names", exec, false);
                 }
             } else {
                 // Coerce columns to data.frame (rather than constructing a new one which would copy the entire data)
-                if (sendRowNames) {
+                if (setRowNames) {
                     monitoredEval(name + "<-as.data.frame(cols,row.names=knime.row.names,check.names=FALSE);names("
                         + name + ")<-knime.col.names", exec, false);
                 } else {
                     monitoredEval(name + "<-as.data.frame(cols,check.names=FALSE);names(" + name + ")<-knime.col.names",
                         exec, false);
                 }
+                if (useArrow) {
+                    monitoredEval(name + "<-arrow::Table$create(" + name + ")", exec, false);
+                }
             }
         } catch (final InterruptedException e) {
             throw new RException("Interrupted while setting row names or creating data.frame.", e);
@@ -1294,11 +3079,327 @@ public void monitoredAssign(final String name, final BufferedDataTable table, fi
         /* Clean up */
         exec.setMessage("Cleaning up.");
 
-        eval(cleanupScript.append(")").toString(), false);
+        eval("rm(" + String.join(",", cleanupVariables) + ")", false);
+
+        if (summary != null) {
+            // Reported in the node once the transfer is done
+            exec.setMessage(summary);
+        }
+        exec.setProgress(1.0);
+    }
+
+    /**
+     * Send a table to R by writing it to a temporary file in R's serialization format, which R reads with a single
+     * call to <code>readRDS</code>. The columns are written in order into a single file. As many columns as fit into
+     * the transfer memory budget are serialized per pass over the table: the first one directly into the file, the
+     * others into memory, from where they are appended once the pass is done. Wide or large tables hence take several
+     * passes, but neither keep more than the budget in memory nor write the data twice.
+     *
+     * @param name name of the variable to assign the table to
+     * @param table the table, must not contain {@link ExportType#LIST} or {@link ExportType#SPARSE} columns
+     * @param exportTypes type of each column
+     * @param sendRowNames whether to send the row keys as row names, otherwise R's compact row names are used
+     * @param rType R type of the variable, see {@link RDataTransferSettings#getRType()}
+     * @param exec for progress and cancellation
+     */
+    private void assignSerialized(final String name, final BufferedDataTable table, final ExportType[] exportTypes,
+        final boolean sendRowNames, final String rType, final ExecutionMonitor exec)
+        throws RException, CanceledExecutionException {
+        final int rowCount = KnowsRowCountTable.checkRowCount(table.size());
+        final String[] columnNames = table.getDataTableSpec().getColumnNames();
+        // the row keys are serialized like an additional column after the last one
+        final int numSlots = columnNames.length + (sendRowNames ? 1 : 0);
+        final long budget = getTransferMemoryBudget();
+
+        File file = null;
+        try {
+            exec.setMessage("Serializing table.");
+            file = FileUtil.createTempFile("knime-r-table-", ".rds");
+            try (final RSerialization.Writer writer = new RSerialization.Writer(new FileOutputStream(file))) {
+                writer.beginVector(RSerialization.VECSXP, columnNames.length, true, true);
+                int first = 0;
+                while (first < numSlots) {
+                    if (first == columnNames.length) {
+                        beginRowNames(writer, columnNames);
+                    }
+                    final List<SerializedColumn> group = new ArrayList<>();
+                    group.add(new SerializedColumn(getSlotType(exportTypes, first), rowCount, writer));
+                    long plannedBytes = 0;
+                    for (int slot = first + 1; slot < numSlots; slot++) {
+                        final ExportType type = getSlotType(exportTypes, slot);
+                        plannedBytes += rowCount * (slot < columnNames.length ? type.m_bytes : ROW_NAME_BYTES);
+                        if (plannedBytes > budget) {
+                            break;
+                        }
+                        group.add(new SerializedColumn(type, rowCount));
+                    }
+
+                    // only read the columns of this pass
+                    final int[] materialized =
+                        IntStream.range(first, Math.min(first + group.size(), columnNames.length)).toArray();
+                    try (final CloseableRowIterator iterator =
+                        table.filter(TableFilter.materializeCols(materialized))) {
+                        int rowIndex = 0;
+                        while (iterator.hasNext()) {
+                            final DataRow row = iterator.next();
+                            for (int k = 0; k < group.size(); k++) {
+                                final int slot = first + k;
+                                if (slot < columnNames.length) {
+                                    group.get(k).write(row.getCell(slot));
+                                } else {
+                                    group.get(k).writeString(row.getKey().getString());
+                                }
+                            }
+                            if ((++rowIndex % 1000) == 0) {
+                                exec.checkCanceled();
+                                exec.setProgress(0.5 * (first + ((double)rowIndex * group.size() / rowCount))
+                                    / numSlots);
+                                // values may be larger than estimated, e.g. long strings, defer the last columns
+                                // of the group to the next pass if they exceed the budget
+                                while ((group.size() > 1) && (getBufferedBytes(group) > budget)) {
+                                    group.remove(group.size() - 1);
+                                }
+                            }
+                        }
+                    }
+
+                    for (int k = 0; k < group.size(); k++) {
+                        final SerializedColumn column = group.get(k);
+                        column.finish();
+                        if (k > 0) {
+                            if ((first + k) == columnNames.length) {
+                                beginRowNames(writer, columnNames);
+                            }
+                            writer.append(column.m_buffer);
+                        }
+                    }
+                    first += group.size();
+                    exec.checkCanceled();
+                }
+                if (!sendRowNames) {
+                    beginRowNames(writer, columnNames);
+                    // compact form of the row names 1:rowCount
+                    writer.beginVector(RSerialization.INTSXP, 2, false, false);
+                    writer.writeInt(RSerialization.NA_INTEGER);
+                    writer.writeInt(-rowCount);
+                }
+                writer.beginAttribute("class");
+                writer.writeStrings(RDataTransferSettings.DATA_FRAME);
+                writer.endAttributes();
+            }
 
+            exec.setMessage("Reading table in R.");
+            exec.setProgress(0.5);
+            final String read = "readRDS(\"" + file.getAbsolutePath().replace('\\', '/') + "\")";
+            if (RDataTransferSettings.DATA_TABLE.equals(rType)) {
+                monitoredEval(name + "<-" + read + ";library(data.table);setDT(" + name + ")", exec, false);
+            } else if (RDataTransferSettings.ARROW_TABLE.equals(rType)) {
+                monitoredEval(name + "<-arrow::Table$create(" + read + ")", exec, false);
+            } else {
+                monitoredEval(name + "<-" + read, exec, false);
+            }
+        } catch (final IOException e) {
+            throw new RException("Could not write the table in R serialization format.", e);
+        } catch (final InterruptedException e) {
+            throw new RException("Interrupted while reading the table in R.", e);
+        } finally {
+            if ((file != null) && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
         exec.setProgress(1.0);
     }
 
+    /**
+     * @return type of a column of the table serialized by {@link #assignSerialized}, or of the row keys
+     */
+    private static ExportType getSlotType(final ExportType[] exportTypes, final int slot) {
+        return slot < exportTypes.length ? exportTypes[slot] : ExportType.CHARACTER;
+    }
+
+    /**
+     * @return number of bytes of the columns of a group which are serialized into memory
+     */
+    private static long getBufferedBytes(final List<SerializedColumn> group) {
+        return group.stream().mapToLong(SerializedColumn::getBufferedBytes).sum();
+    }
+
+    /**
+     * Write the column names of a serialized data.frame and start its row names, which have to follow.
+     */
+    private static void beginRowNames(final RSerialization.Writer writer, final String[] columnNames)
+        throws IOException {
+        writer.beginAttribute("names");
+        writer.writeStrings(columnNames);
+        writer.beginAttribute("row.names");
+    }
+
+    /**
+     * A column of a table written as R vector with its class attributes, either directly to the stream of the table
+     * or to a fragment in memory, see {@link RSerialization.Writer#fragment(java.io.OutputStream)}. Factor levels
+     * are in order of first occurrence, date and time columns are sent as numbers of days or seconds since epoch like
+     * in batches.
+     */
+    private static final class SerializedColumn {
+
+        private final ExportType m_type;
+
+        private final boolean m_hasClass;
+
+        /** Values of the column if it is written to a fragment, <code>null</code> if written directly */
+        final ByteArrayOutputStream m_buffer;
+
+        private final RSerialization.Writer m_writer;
+
+        private final Map<String, Integer> m_levels = new LinkedHashMap<>();
+
+        private ZoneId m_zone;
+
+        /**
+         * Create a column which is written to a fragment in memory.
+         */
+        SerializedColumn(final ExportType type, final int rowCount) throws IOException {
+            this(type, rowCount, new ByteArrayOutputStream());
+        }
+
+        /**
+         * Create a column which is written directly to the stream of the table.
+         */
+        SerializedColumn(final ExportType type, final int rowCount, final RSerialization.Writer writer)
+            throws IOException {
+            this(type, rowCount, writer, null);
+        }
+
+        private SerializedColumn(final ExportType type, final int rowCount, final ByteArrayOutputStream buffer)
+            throws IOException {
+            this(type, rowCount, RSerialization.Writer.fragment(buffer), buffer);
+        }
+
+        private SerializedColumn(final ExportType type, final int rowCount, final RSerialization.Writer writer,
+            final ByteArrayOutputStream buffer) throws IOException {
+            m_type = type;
+            m_hasClass = (type != ExportType.LOGICAL) && (type != ExportType.INTEGER)
+                && (type != ExportType.DOUBLE) && (type != ExportType.CHARACTER);
+            m_buffer = buffer;
+            m_writer = writer;
+            m_writer.beginVector(getRType(type), rowCount, m_hasClass, m_hasClass);
+        }
+
+        /**
+         * @return number of bytes written to the fragment so far, 0 if the column is written directly
+         */
+        long getBufferedBytes() {
+            return m_buffer == null ? 0 : m_buffer.size();
+        }
+
+        private static int getRType(final ExportType type) {
+            switch (type) {
+                case LOGICAL:
+                    return RSerialization.LGLSXP;
+                case INTEGER:
+                case FACTOR:
+                    return RSerialization.INTSXP;
+                case CHARACTER:
+                    return RSerialization.STRSXP;
+                default:
+                    return RSerialization.REALSXP;
+            }
+        }
+
+        /** Write the value of the next row. */
+        void write(final DataCell cell) throws IOException {
+            switch (m_type) {
+                case LOGICAL:
+                    m_writer.writeInt(exportLogicalValue(cell));
+                    break;
+                case INTEGER:
+                    m_writer.writeInt(exportIntValue(cell));
+                    break;
+                case FACTOR:
+                    if (cell.isMissing()) {
+                        m_writer.writeInt(RSerialization.NA_INTEGER);
+                    } else {
+                        final String value = ((StringValue)cell).getStringValue();
+                        Integer code = m_levels.get(value);
+                        if (code == null) {
+                            code = m_levels.size() + 1; // R indices are base 1
+                            m_levels.put(value, code);
+                        }
+                        m_writer.writeInt(code);
+                    }
+                    break;
+                case CHARACTER:
+                    m_writer.writeString(exportStringValue(cell));
+                    break;
+                case INTEGER64:
+                    m_writer.writeLong(exportLongValue(cell));
+                    break;
+                case DATE:
+                    m_writer.writeDouble(exportLocalDateValue(cell));
+                    break;
+                case LOCAL_DATE_TIME:
+                    m_writer.writeDouble(exportLocalDateTimeValue(cell));
+                    break;
+                case ZONED_DATE_TIME:
+                    m_writer.writeDouble(exportZonedDateTimeValue(cell));
+                    if ((m_zone == null) && !cell.isMissing()) {
+                        m_zone = ((ZonedDateTimeValue)cell).getZonedDateTime().getZone();
+                    }
+                    break;
+                case DURATION:
+                    m_writer.writeDouble(exportDurationValue(cell));
+                    break;
+                default:
+                    m_writer.writeDouble(exportDoubleValue(cell));
+            }
+        }
+
+        /** Write the value of the next row of a {@link ExportType#CHARACTER} column, e.g. the row keys. */
+        void writeString(final String value) throws IOException {
+            m_writer.writeString(value);
+        }
+
+        /** Write the attributes after the last row and flush the fragment for appending, if any. */
+        void finish() throws IOException {
+            switch (m_type) {
+                case FACTOR:
+                    m_writer.beginAttribute("levels");
+                    m_writer.writeStrings(m_levels.keySet().toArray(new String[m_levels.size()]));
+                    m_writer.beginAttribute("class");
+                    m_writer.writeStrings("factor");
+                    break;
+                case INTEGER64:
+                    m_writer.beginAttribute("class");
+                    m_writer.writeStrings("integer64");
+                    break;
+                case DATE:
+                    m_writer.beginAttribute("class");
+                    m_writer.writeStrings("Date");
+                    break;
+                case LOCAL_DATE_TIME:
+                case ZONED_DATE_TIME:
+                    m_writer.beginAttribute("class");
+                    m_writer.writeStrings("POSIXct", "POSIXt");
+                    m_writer.beginAttribute("tzone");
+                    m_writer.writeStrings(m_type == ExportType.LOCAL_DATE_TIME ? "UTC" : toRTimeZone(m_zone));
+                    break;
+                case DURATION:
+                    m_writer.beginAttribute("class");
+                    m_writer.writeStrings("difftime");
+                    m_writer.beginAttribute("units");
+                    m_writer.writeStrings("secs");
+                    break;
+                default:
+            }
+            if (m_hasClass) {
+                m_writer.endAttributes();
+            }
+            if (m_buffer != null) {
+                m_writer.close();
+            }
+        }
+    }
+
     @Override
     public void saveWorkspace(final File workspaceFile, final ExecutionMonitor exec)
         throws RException, CanceledExecutionException {
@@ -1347,8 +3448,6 @@ public static String createLoadLibraryFunctionCall(final List<String> listOfLibr
      */
     private final class MonitoredEval {
 
-        private final int m_interval = 200;
-
         private final ExecutionMonitor m_exec;
 
         /**
@@ -1361,26 +3460,24 @@ public MonitoredEval(final ExecutionMonitor exec) {
         }
 
         /*
-         * Run the Callable in a thread and make sure to cancel it, in case
+         * Run the Callable on the evaluation pool and make sure to cancel it, in case
          * execution is cancelled.
          */
         private REXP monitor(final Callable<REXP> task)
             throws InterruptedException, RException, CanceledExecutionException {
-            final FutureTask<REXP> runningTask = new FutureTask<>(task);
-            final Thread t = (m_useNodeContext) ? ThreadUtils.threadWithContext(runningTask, "R-Evaluation")
-                : new Thread(runningTask, "R-Evaluation");
-            t.start();
+            final Future<REXP> runningTask =
+                R_EVALUATION_POOL.submit((m_useNodeContext) ? ThreadUtils.callableWithContext(task) : task);
 
             try {
-                while (!runningTask.isDone()) {
-                    Thread.sleep(m_interval);
-                    m_exec.checkCanceled();
+                while (true) {
+                    try {
+                        // returns as soon as the evaluation is done, the timeout only bounds the time until
+                        // cancellation is noticed.
+                        return runningTask.get(MONITOR_INTERVAL, TimeUnit.MILLISECONDS);
+                    } catch (final TimeoutException e) {
+                        m_exec.checkCanceled();
+                    }
                 }
-                // AP-11567: We need to wait for the other thread to die. If the thread lives until the
-                // finally block we would terminate the Rserve instance without a reason.
-                t.join();
-
-                return runningTask.get();
             } catch (final ExecutionException e) {
                 if (e.getCause() instanceof RException) {
                     throw (RException)e.getCause();
@@ -1388,8 +3485,10 @@ private REXP monitor(final Callable<REXP> task)
                 throw new RException("Exception during R evaluation", e);
             } finally {
                 try {
-                    if (t.isAlive()) {
-                        t.interrupt();
+                    // AP-11567: A future is only done once the evaluation returned. If it is not done here, we have
+                    // been cancelled or interrupted and terminating the Rserve instance is justified.
+                    if (!runningTask.isDone()) {
+                        runningTask.cancel(true);
 
                         // The eval() call blocks somewhere in RTalk class,
                         // where it waits for a socket. If we close that, we
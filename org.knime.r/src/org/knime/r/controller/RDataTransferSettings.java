@@ -0,0 +1,236 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * Settings for transferring a {@link BufferedDataTable} between KNIME and R.
+ *
+ * @see IRController#monitoredAssign(String, BufferedDataTable, org.knime.core.node.ExecutionMonitor,
+ *      RDataTransferSettings)
+ * @see IRController#importBufferedDataTable(String, boolean, RDataTransferSettings,
+ *      org.knime.core.node.ExecutionContext)
+ * @since 5.12
+ */
+public final class RDataTransferSettings {
+
+    /** R type "data.frame" for the transferred table */
+    public static final String DATA_FRAME = "data.frame";
+
+    /** R type "data.table" for the transferred table */
+    public static final String DATA_TABLE = "data.table";
+
+    /** Arrow Table of the R package "arrow" for the transferred table */
+    public static final String ARROW_TABLE = "arrow";
+
+    /**
+     * How string columns are represented in R.
+     */
+    public enum StringEncoding {
+            /** Choose between factor and character based on the cardinality of the column. */
+            AUTO,
+            /** Send the column as factor. Efficient for columns with few distinct values. */
+            FACTOR,
+            /** Send the column as character vector. Efficient for columns with mostly distinct values. */
+            CHARACTER;
+    }
+
+    /**
+     * How tables are transferred between KNIME and R.
+     */
+    public enum TransferEngine {
+            /** Send the rows in batches which are copied into the columns in R, receive them in chunks. */
+            BATCHES,
+            /**
+             * Write the table in R's serialization format, which R reads with a single call. Tables with collection
+             * or bit vector columns, and data.frames with columns other than logical, integer, double, character and
+             * factor vectors are transferred in batches.
+             */
+            SERIALIZATION;
+    }
+
+    private int m_batchSize = 10000;
+
+    private String m_rType = DATA_FRAME;
+
+    private boolean m_sendRowNames = true;
+
+    private boolean m_sendSparseMatrices = false;
+
+    private boolean m_sendMatrixColumns = false;
+
+    private TransferEngine m_transferEngine = TransferEngine.BATCHES;
+
+    private Map<String, StringEncoding> m_stringEncodings = Collections.emptyMap();
+
+    /**
+     * @return max number of rows to send to R per batch.
+     */
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    /**
+     * @param batchSize max number of rows to send to R per batch.
+     * @return this instance
+     */
+    public RDataTransferSettings setBatchSize(final int batchSize) {
+        m_batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @return R type to provide the table data as, either {@link #DATA_FRAME}, {@link #DATA_TABLE} or
+     *         {@link #ARROW_TABLE}.
+     */
+    public String getRType() {
+        return m_rType;
+    }
+
+    /**
+     * @param rType R type to provide the table data as, either {@link #DATA_FRAME}, {@link #DATA_TABLE} or
+     *            {@link #ARROW_TABLE}.
+     * @return this instance
+     */
+    public RDataTransferSettings setRType(final String rType) {
+        m_rType = rType;
+        return this;
+    }
+
+    /**
+     * @return whether to send row names of the table to R.
+     */
+    public boolean getSendRowNames() {
+        return m_sendRowNames;
+    }
+
+    /**
+     * @param sendRowNames whether to send row names of the table to R.
+     * @return this instance
+     */
+    public RDataTransferSettings setSendRowNames(final boolean sendRowNames) {
+        m_sendRowNames = sendRowNames;
+        return this;
+    }
+
+    /**
+     * @return whether to send bit vector columns as sparse matrices, see
+     *         {@link #setSendSparseMatrices(boolean)}.
+     */
+    public boolean getSendSparseMatrices() {
+        return m_sendSparseMatrices;
+    }
+
+    /**
+     * @param sendSparseMatrices whether to send bit vector columns as sparse matrices (<code>Matrix::dgCMatrix</code>)
+     *            named <code>&lt;variable&gt;.matrix.&lt;column&gt;</code> instead of as string columns of the table.
+     *            Requires the R package "Matrix", otherwise the columns are sent as strings.
+     * @return this instance
+     */
+    public RDataTransferSettings setSendSparseMatrices(final boolean sendSparseMatrices) {
+        m_sendSparseMatrices = sendSparseMatrices;
+        return this;
+    }
+
+    /**
+     * @return whether to send numeric collection columns as matrix columns, see
+     *         {@link #setSendMatrixColumns(boolean)}.
+     * @since 5.12
+     */
+    public boolean getSendMatrixColumns() {
+        return m_sendMatrixColumns;
+    }
+
+    /**
+     * @param sendMatrixColumns whether to send numeric collection columns whose cells all have the same length as
+     *            matrix columns (<code>I(matrix)</code>) with one row per table row instead of as list columns. Only
+     *            applies to data.frames, data.table and Arrow Tables keep list columns.
+     * @return this instance
+     * @since 5.12
+     */
+    public RDataTransferSettings setSendMatrixColumns(final boolean sendMatrixColumns) {
+        m_sendMatrixColumns = sendMatrixColumns;
+        return this;
+    }
+
+    /**
+     * @return how tables are transferred between KNIME and R.
+     */
+    public TransferEngine getTransferEngine() {
+        return m_transferEngine;
+    }
+
+    /**
+     * @param transferEngine how tables are transferred between KNIME and R.
+     * @return this instance
+     */
+    public RDataTransferSettings setTransferEngine(final TransferEngine transferEngine) {
+        m_transferEngine = transferEngine;
+        return this;
+    }
+
+    /**
+     * @param columnName name of a column
+     * @return the encoding to use for the given column, {@link StringEncoding#AUTO} if not overwritten.
+     */
+    public StringEncoding getStringEncoding(final String columnName) {
+        return m_stringEncodings.getOrDefault(columnName, StringEncoding.AUTO);
+    }
+
+    /**
+     * @param stringEncodings encodings of string columns by column name, columns which are not contained use
+     *            {@link StringEncoding#AUTO}.
+     * @return this instance
+     */
+    public RDataTransferSettings setStringEncodings(final Map<String, StringEncoding> stringEncodings) {
+        m_stringEncodings = Collections.unmodifiableMap(new LinkedHashMap<>(stringEncodings));
+        return this;
+    }
+}
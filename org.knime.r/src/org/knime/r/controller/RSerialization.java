@@ -0,0 +1,487 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.r.controller;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer and reader for the subset of R's native XDR serialization format (version 2, as written by
+ * <code>serialize(x, NULL, xdr=TRUE, version=2)</code> and <code>saveRDS(x, compress=FALSE, version=2)</code>) which is
+ * needed to transfer data.frames: logical, integer, double, character and generic vectors with attributes.
+ * <p>
+ * A serialized object is written in a single pass: the values of a vector come before its attributes, so e.g. the
+ * levels of a factor can be collected while its codes are written. R rebuilds the object with a single call to
+ * <code>readRDS</code> or <code>unserialize</code>, which is much faster than copying batches in R code.
+ */
+final class RSerialization {
+
+    static final int SYMSXP = 1;
+
+    static final int LISTSXP = 2;
+
+    static final int CHARSXP = 9;
+
+    static final int LGLSXP = 10;
+
+    static final int INTSXP = 13;
+
+    static final int REALSXP = 14;
+
+    static final int STRSXP = 16;
+
+    static final int VECSXP = 19;
+
+    private static final int REFSXP = 255;
+
+    private static final int NILVALUE_SXP = 254;
+
+    private static final int IS_OBJECT = 1 << 8;
+
+    private static final int HAS_ATTR = 1 << 9;
+
+    private static final int HAS_TAG = 1 << 10;
+
+    /** General purpose bits of a CHARSXP, shifted into the flags */
+    private static final int LEVELS_SHIFT = 12;
+
+    private static final int LATIN1_MASK = 1 << 2;
+
+    private static final int UTF8_MASK = 1 << 3;
+
+    /** R version which wrote the stream, 3.5.0 */
+    private static final int WRITER_VERSION = 0x030500;
+
+    /** Minimum R version to read the stream, 2.3.0 */
+    private static final int MIN_READER_VERSION = 0x020300;
+
+    /** NA of R's integer and logical vectors */
+    static final int NA_INTEGER = Integer.MIN_VALUE;
+
+    private RSerialization() {
+    }
+
+    /**
+     * Writes an object in R's serialization format. Vectors are started with
+     * {@link #beginVector(int, int, boolean, boolean)}, followed by exactly as many values as announced, and by their
+     * attributes if announced: each started with {@link #beginAttribute(String)} and followed by one object, the list
+     * terminated by {@link #endAttributes()}.
+     */
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream m_out;
+
+        /**
+         * Create a writer and write the header of the stream.
+         *
+         * @param out stream to write to, closed with this writer
+         * @throws IOException if writing fails
+         */
+        Writer(final OutputStream out) throws IOException {
+            this(out, 1 << 16);
+            m_out.writeBytes("X\n");
+            m_out.writeInt(2);
+            m_out.writeInt(WRITER_VERSION);
+            m_out.writeInt(MIN_READER_VERSION);
+        }
+
+        private Writer(final OutputStream out, final int bufferSize) {
+            // DataOutputStream writes big endian, which is XDR
+            m_out = new DataOutputStream(new BufferedOutputStream(out, bufferSize));
+        }
+
+        /**
+         * Create a writer for a part of a stream, e.g. a single vector, which is later copied into a complete stream
+         * with {@link #append(ByteArrayOutputStream)}. No header is written. The writer only has a small buffer, since
+         * many fragments may be written at the same time.
+         *
+         * @param out stream to write to, closed with the returned writer
+         * @return the writer
+         */
+        static Writer fragment(final OutputStream out) {
+            return new Writer(out, 1 << 9);
+        }
+
+        /**
+         * Start a logical, integer, double, character or generic vector.
+         *
+         * @param type one of {@link #LGLSXP}, {@link #INTSXP}, {@link #REALSXP}, {@link #STRSXP} or {@link #VECSXP}
+         * @param length number of elements
+         * @param isObject whether the vector has a class attribute
+         * @param hasAttributes whether attributes follow the elements
+         * @throws IOException if writing fails
+         */
+        void beginVector(final int type, final int length, final boolean isObject, final boolean hasAttributes)
+            throws IOException {
+            m_out.writeInt(type | (isObject ? IS_OBJECT : 0) | (hasAttributes ? HAS_ATTR : 0));
+            m_out.writeInt(length);
+        }
+
+        /**
+         * Write an element of a logical or integer vector.
+         *
+         * @param value the value, {@link RSerialization#NA_INTEGER} for NA
+         * @throws IOException if writing fails
+         */
+        void writeInt(final int value) throws IOException {
+            m_out.writeInt(value);
+        }
+
+        /**
+         * Write an element of a double vector.
+         *
+         * @param value the value
+         * @throws IOException if writing fails
+         */
+        void writeDouble(final double value) throws IOException {
+            // raw bits to keep the payload of R's NA
+            m_out.writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        /**
+         * Write the raw bits of a bit64 integer64 value, an element of a double vector.
+         *
+         * @param value the value
+         * @throws IOException if writing fails
+         */
+        void writeLong(final long value) throws IOException {
+            m_out.writeLong(value);
+        }
+
+        /**
+         * Write an element of a character vector.
+         *
+         * @param value the value, <code>null</code> for NA
+         * @throws IOException if writing fails
+         */
+        void writeString(final String value) throws IOException {
+            if (value == null) {
+                m_out.writeInt(CHARSXP);
+                m_out.writeInt(-1);
+                return;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            m_out.writeInt(CHARSXP | (UTF8_MASK << LEVELS_SHIFT));
+            m_out.writeInt(bytes.length);
+            m_out.write(bytes);
+        }
+
+        /**
+         * Write a character vector without attributes.
+         *
+         * @param values the elements, <code>null</code> for NA
+         * @throws IOException if writing fails
+         */
+        void writeStrings(final String... values) throws IOException {
+            beginVector(STRSXP, values.length, false, false);
+            for (final String value : values) {
+                writeString(value);
+            }
+        }
+
+        /**
+         * Start an attribute, its value has to be written next.
+         *
+         * @param name name of the attribute
+         * @throws IOException if writing fails
+         */
+        void beginAttribute(final String name) throws IOException {
+            m_out.writeInt(LISTSXP | HAS_TAG);
+            m_out.writeInt(SYMSXP);
+            writeString(name);
+        }
+
+        /**
+         * End the attributes of a vector.
+         *
+         * @throws IOException if writing fails
+         */
+        void endAttributes() throws IOException {
+            m_out.writeInt(NILVALUE_SXP);
+        }
+
+        /**
+         * Copy a fragment written by a writer created with {@link #fragment(OutputStream)} into this stream.
+         *
+         * @param fragment the buffer the fragment was written to, its writer has to be closed
+         * @throws IOException if writing fails
+         */
+        void append(final ByteArrayOutputStream fragment) throws IOException {
+            fragment.writeTo(m_out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_out.close();
+        }
+    }
+
+    /**
+     * A vector read from a serialized stream. Its values are an <code>int[]</code> for logical and integer vectors,
+     * a <code>double[]</code> for double vectors, a <code>String[]</code> for character vectors (<code>null</code> for
+     * NA) and a <code>List&lt;RVector&gt;</code> for generic vectors.
+     */
+    static final class RVector {
+
+        final int m_type;
+
+        final Object m_values;
+
+        final Map<String, RVector> m_attributes = new HashMap<>();
+
+        RVector(final int type, final Object values) {
+            m_type = type;
+            m_values = values;
+        }
+
+        /**
+         * @param name name of the attribute
+         * @return the attribute, <code>null</code> if the vector does not have it
+         */
+        RVector getAttribute(final String name) {
+            return m_attributes.get(name);
+        }
+
+        /**
+         * @param className name of a class
+         * @return whether the class attribute of this vector contains the class
+         */
+        boolean inherits(final String className) {
+            final RVector classes = m_attributes.get("class");
+            if ((classes == null) || (classes.m_type != STRSXP)) {
+                return false;
+            }
+            for (final String c : (String[])classes.m_values) {
+                if (className.equals(c)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the number of elements
+         */
+        int length() {
+            switch (m_type) {
+                case LGLSXP:
+                case INTSXP:
+                    return ((int[])m_values).length;
+                case REALSXP:
+                    return ((double[])m_values).length;
+                case STRSXP:
+                    return ((String[])m_values).length;
+                default:
+                    return ((List<?>)m_values).size();
+            }
+        }
+    }
+
+    /**
+     * Reads vectors from a stream in R's serialization format. Only the types written by {@link Writer} are
+     * supported, i.e. the stream has to contain atomic or generic vectors whose attributes are such vectors too.
+     */
+    static final class Reader {
+
+        private final DataInputStream m_in;
+
+        /** Symbols which were read, referenced by later occurrences */
+        private final List<String> m_symbols = new ArrayList<>();
+
+        /**
+         * Create a reader and check the header of the stream.
+         *
+         * @param in stream to read from
+         * @throws IOException if the stream is not in XDR serialization format version 2
+         */
+        Reader(final InputStream in) throws IOException {
+            m_in = new DataInputStream(in);
+            if ((m_in.readUnsignedByte() != 'X') || (m_in.readUnsignedByte() != '\n')) {
+                throw new IOException("Not an R serialization stream in XDR format.");
+            }
+            final int version = m_in.readInt();
+            if (version != 2) {
+                throw new IOException("Unsupported R serialization format version " + version + ".");
+            }
+            m_in.readInt(); // writer version
+            m_in.readInt(); // minimal reader version
+        }
+
+        /**
+         * Read a whole serialized object.
+         *
+         * @param bytes the serialized object, e.g. the result of <code>serialize(x, NULL, xdr=TRUE, version=2)</code>
+         * @return the object, <code>null</code> for NULL
+         * @throws IOException if the bytes are not a supported serialized object
+         */
+        static RVector read(final byte[] bytes) throws IOException {
+            return new Reader(new ByteArrayInputStream(bytes)).readVector();
+        }
+
+        /**
+         * Read the next object.
+         *
+         * @return the object, <code>null</code> for NULL
+         * @throws IOException if the next object is not supported or reading fails
+         */
+        RVector readVector() throws IOException {
+            final int flags = m_in.readInt();
+            final int type = flags & 0xFF;
+            if (type == NILVALUE_SXP) {
+                return null;
+            }
+            final int length = m_in.readInt();
+            final RVector vector;
+            switch (type) {
+                case LGLSXP:
+                case INTSXP:
+                    final int[] ints = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        ints[i] = m_in.readInt();
+                    }
+                    vector = new RVector(type, ints);
+                    break;
+                case REALSXP:
+                    final double[] doubles = new double[length];
+                    for (int i = 0; i < length; i++) {
+                        doubles[i] = Double.longBitsToDouble(m_in.readLong());
+                    }
+                    vector = new RVector(type, doubles);
+                    break;
+                case STRSXP:
+                    final String[] strings = new String[length];
+                    for (int i = 0; i < length; i++) {
+                        strings[i] = readString(m_in.readInt());
+                    }
+                    vector = new RVector(type, strings);
+                    break;
+                case VECSXP:
+                    final List<RVector> elements = new ArrayList<>(length);
+                    for (int i = 0; i < length; i++) {
+                        elements.add(readVector());
+                    }
+                    vector = new RVector(type, elements);
+                    break;
+                default:
+                    throw new IOException("Unsupported type " + type + " in R serialization stream.");
+            }
+            if ((flags & HAS_ATTR) != 0) {
+                readAttributes(vector);
+            }
+            return vector;
+        }
+
+        /**
+         * Read the pairlist of attributes of a vector.
+         */
+        private void readAttributes(final RVector vector) throws IOException {
+            int flags = m_in.readInt();
+            while ((flags & 0xFF) != NILVALUE_SXP) {
+                if (((flags & 0xFF) != LISTSXP) || ((flags & HAS_TAG) == 0) || ((flags & HAS_ATTR) != 0)) {
+                    throw new IOException("Unsupported attribute list in R serialization stream.");
+                }
+                final String name = readSymbol();
+                vector.m_attributes.put(name, readVector());
+                flags = m_in.readInt();
+            }
+        }
+
+        /**
+         * Read a symbol or a reference to a symbol read before.
+         */
+        private String readSymbol() throws IOException {
+            final int flags = m_in.readInt();
+            if ((flags & 0xFF) == REFSXP) {
+                // the index is packed into the flags unless it is too large
+                int index = flags >>> 8;
+                if (index == 0) {
+                    index = m_in.readInt();
+                }
+                return m_symbols.get(index - 1);
+            }
+            if ((flags & 0xFF) != SYMSXP) {
+                throw new IOException("Unsupported attribute name in R serialization stream.");
+            }
+            final int charFlags = m_in.readInt();
+            final String name = readString(charFlags, m_in.readInt());
+            m_symbols.add(name);
+            return name;
+        }
+
+        private String readString(final int flags) throws IOException {
+            if ((flags & 0xFF) != CHARSXP) {
+                throw new IOException("Unsupported string in R serialization stream.");
+            }
+            return readString(flags, m_in.readInt());
+        }
+
+        /**
+         * Read the bytes of a CHARSXP.
+         */
+        private String readString(final int flags, final int length) throws IOException {
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            m_in.readFully(bytes);
+            final Charset charset =
+                ((flags >> LEVELS_SHIFT) & LATIN1_MASK) != 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+            return new String(bytes, charset);
+        }
+    }
+}
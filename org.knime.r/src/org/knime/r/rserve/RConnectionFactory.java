@@ -7,18 +7,29 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.ServerSocket;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.FileUtil;
@@ -49,14 +60,79 @@ public class RConnectionFactory {
      */
     private static final String PROPERTY_R_RSERVE_CONNECT_TIMEOUT = "knime.r.rserve.connecttimeout";
 
+    /**
+     * For KNIME's R extension: Whether tables are sent to R through memory-mapped files instead of the Rserve
+     * connection (default false).
+     */
+    private static final String PROPERTY_R_SHARED_MEMORY = "knime.r.sharedmemory";
+
+    /**
+     * For KNIME's R extension: Minimum number of idle Rserve processes which are kept running for each R installation,
+     * started in the background. Value is integral (default 0, no processes are started in advance).
+     */
+    private static final String PROPERTY_R_RSERVE_POOL_SIZE = "knime.r.rserve.poolsize";
+
+    /**
+     * For KNIME's R extension: Comma separated list of R packages which are loaded when an Rserve process is started,
+     * e.g. "data.table,ggplot2" (default none). Packages which are not installed are skipped.
+     */
+    private static final String PROPERTY_R_RSERVE_PRELOAD = "knime.r.rserve.preload";
+
+    /**
+     * For KNIME's R extension: Maximum number of Rserve processes running at the same time, for all R installations.
+     * Further nodes wait until a process becomes available. Value is integral (default 0, no limit).
+     */
+    private static final String PROPERTY_R_RSERVE_MAX_PROCESSES = "knime.r.rserve.maxprocesses";
+
+    /**
+     * For KNIME's R extension: Timeout for waiting for a free Rserve process if the maximum number of processes is
+     * running. Value is integral and in milliseconds, 0 to wait until canceled (default 600000).
+     */
+    private static final String PROPERTY_R_RSERVE_WAIT_TIMEOUT = "knime.r.rserve.waittimeout";
+
+    private static final int POOL_SIZE = Math.max(0, Integer.getInteger(PROPERTY_R_RSERVE_POOL_SIZE, 0));
+
+    private static final int MAX_PROCESSES = Math.max(0, Integer.getInteger(PROPERTY_R_RSERVE_MAX_PROCESSES, 0));
+
+    /** Interval between attempts to connect to a starting Rserve process in milliseconds */
+    private static final long CONNECT_RETRY_INTERVAL = 10;
+
+    /** Interval in which waiting callers check for free processes and cancellation in milliseconds */
+    private static final long WAIT_POLL_INTERVAL = 100;
+
+    /** Starts the Rserve processes of the pool one after the other */
+    private static final ExecutorService POOL_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "R Process Pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Directory for memory-mapped files on Linux, backed by memory instead of a disk */
+    private static final File SHARED_MEMORY_DIR = new File("/dev/shm");
+
     private static final NodeLogger LOGGER = NodeLogger.getLogger(RController.class);
 
     private static final boolean DEBUG_RSERVE = Boolean.getBoolean(KNIMEConstants.PROPERTY_R_RSERVE_DEBUG);
 
     private static final ReentrantLock RESOURCES_LOCK = new ReentrantLock();
 
+    /** Signaled when a waiting caller leaves the queue, waiting callers also poll for released processes */
+    private static final Condition PROCESS_AVAILABLE = RESOURCES_LOCK.newCondition();
+
+    /** Callers of {@link #createConnection(RPreferenceProvider, ExecutionMonitor)} waiting for a process, in order */
+    private static final Deque<Object> WAITING = new ArrayDeque<>();
+
+    /** Number of processes which are being launched and not yet added to the resources, guarded by the lock */
+    private static int launchingProcesses = 0;
+
     private static final Map<RPreferenceProvider, List<RConnectionResource>> RESOURCES = new HashMap<>();
 
+    /**
+     * Preferences for which launching a process for the pool failed. Their pool is not refilled until a process was
+     * launched for a caller again, guarded by the lock.
+     */
+    private static final Set<RPreferenceProvider> POOL_FAILURES = new HashSet<>();
+
     /**
      * Class which allows locking a lock in a try-with-resource statement to be implicitly unlocked in finally.
      *
@@ -143,16 +219,55 @@ private static List<RConnectionResource> getAllResources() {
     }
 
     /**
-     * @return Configuration file for Rserve
+     * Maximum size of a single message sent to or received from Rserve, configured as "maxinbuf" and "maxsendbuf".
+     *
+     * @return size in bytes
+     */
+    public static long getMaxMessageSize() {
+        return RPreferenceInitializer.getRProvider().getMaxInfBuf() * 1024L * 1024L;
+    }
+
+    /**
+     * @return maximum number of Rserve processes running at the same time, 0 if not limited, see
+     *         "knime.r.rserve.maxprocesses"
+     * @since 5.12
+     */
+    public static int getMaxProcesses() {
+        return MAX_PROCESSES;
+    }
+
+    /**
+     * Directory for files which are shared with the Rserve processes to transfer data without sending it over the
+     * Rserve connection. Rserve is always launched on the local host, so it can read the files written by KNIME.
+     *
+     * @return <code>/dev/shm</code> if it is available, the temporary directory of the R processes otherwise, or
+     *         <code>null</code> if transferring data through files is disabled, see "knime.r.sharedmemory"
+     * @since 5.12
      */
-    private static File createRserveConfig() {
-        final File file = new File(tempDir, "Rserve.conf");
+    public static File getSharedMemoryDirectory() {
+        if (!Boolean.getBoolean(PROPERTY_R_SHARED_MEMORY)) {
+            return null;
+        }
+        return SHARED_MEMORY_DIR.isDirectory() && SHARED_MEMORY_DIR.canWrite() ? SHARED_MEMORY_DIR : tempDir;
+    }
+
+    /**
+     * @param port port the Rserve process is launched on
+     * @return Configuration file for Rserve, one per port since processes may be launched concurrently
+     */
+    private static File createRserveConfig(final int port) {
+        final File file = new File(tempDir, "Rserve-" + port + ".conf");
         try (FileWriter writer = new FileWriter(file)) {
             // convert preference from MB (more intuitive) to kB (required by Rserve)
-            final int bufferSizeInKB = RPreferenceInitializer.getRProvider().getMaxInfBuf() * 1024;
+            final long bufferSizeInKB = getMaxMessageSize() / 1024;
             writer.write("maxinbuf " + bufferSizeInKB + "\n");
             writer.write("maxsendbuf " + bufferSizeInKB + "\n");
             writer.write("encoding utf8\n"); // encoding for java clients
+            final String preload = getPreloadExpression();
+            if (preload != null) {
+                // evaluated once by the server process, so all connections forked from it share the loaded packages
+                writer.write("eval " + preload + "\n");
+            }
 
             /* YES, EA! See https://github.com/s-u/Rserve/blob/
              * 4800e9dc1c67cf4fbc14c502dc7615b644610152/src/Rserv.c#L1134
@@ -172,17 +287,35 @@ private static File createRserveConfig() {
         return file;
     }
 
+    /**
+     * @return R expression loading the namespaces of the packages configured in "knime.r.rserve.preload", or
+     *         <code>null</code> if there are none
+     */
+    private static String getPreloadExpression() {
+        final String packages = System.getProperty(PROPERTY_R_RSERVE_PRELOAD, "");
+        final String names = Stream.of(packages.split(",")).map(String::trim)
+            .filter(name -> name.matches("[A-Za-z][A-Za-z0-9.]*")).map(name -> "'" + name + "'")
+            .collect(Collectors.joining(","));
+        if (names.isEmpty()) {
+            return null;
+        }
+        // namespaces are only loaded, not attached, so that scripts still decide which packages mask others
+        return "for(knime.pkg in c(" + names + ")){suppressWarnings(requireNamespace(knime.pkg,quietly=TRUE))};"
+            + "rm(knime.pkg)";
+    }
+
     /**
      * Start an Rserve process with a given Rserve executable command.
      *
      * @param preferences R preferences
      * @param host Host of the Rserve server
      * @param port Port to start the Rserve server on
+     * @param configFile Configuration file for Rserve, see {@link #createRserveConfig(int)}
      * @return the started Rserve process
      * @throws IOException
      */
-    private static Process launchRserveProcess(final RPreferenceProvider preferences, final String host, final Integer port)
-        throws IOException {
+    private static Process launchRserveProcess(final RPreferenceProvider preferences, final String host,
+        final Integer port, final File configFile) throws IOException {
         // if debugging, launch debug version of Rserve.
         final String command = preferences.getRServeBinPath();
         final String cmd =
@@ -197,7 +330,6 @@ private static Process launchRserveProcess(final RPreferenceProvider preferences
         }
         final String rHome = preferences.getRHome();
 
-        final File configFile = createRserveConfig();
         final ProcessBuilder builder = new ProcessBuilder();
         final List<String> fullCommand = new ArrayList<>();
         Collections.addAll(fullCommand, cmd, "--RS-port", port.toString(), "--RS-conf", configFile.getAbsolutePath());
@@ -245,8 +377,10 @@ private static Process launchRserveProcess(final RPreferenceProvider preferences
     private static RInstance launchRserve(final RPreferenceProvider preferences, final String host, final Integer port)
         throws IOException {
         RInstance rInstance = null;
+        // read by Rserve while starting, before it accepts connections
+        final File configFile = createRserveConfig(port);
         try {
-            final Process p = launchRserveProcess(preferences, host, port);
+            final Process p = launchRserveProcess(preferences, host, port, configFile);
 
             // wrap the process, requires host and port to create RConnections
             // later.
@@ -264,43 +398,33 @@ private static RInstance launchRserve(final RPreferenceProvider preferences, fin
             }).start();
             new StreamReaderThread(p.getErrorStream(), "R Error Reader (port:" + port + ")", LOGGER::debug).start();
 
-			// try connecting up to 5 times over the course of `timeout` ms. Attempts
-			// may fail if Rserve is currently starting up.
-			final Integer timeout = Integer.getInteger(PROPERTY_R_RSERVE_CONNECT_TIMEOUT, 30000);
-			int totalTime = 0; // total time waited
-			int attempts = 0; // number of attempts
-
-			while (totalTime < timeout) {
-				try {
-					attempts += 1;
-					final RConnection connection = rInstance.createConnection();
-					if (connection != null) {
-					    LOGGER.debugWithFormat("Connected to Rserve in %d attempt(s) (%dms).", attempts, totalTime);
-						break;
-					}
-				} catch (RserveException e) {
-					LOGGER.debug(String.format("Attempt #%d to connect to Rserve failed (waited %dms, timeout %dms)",
-                        attempts, totalTime, timeout), e);
-					// produces 200, 400, 800, 1600, 3200 until the diff to`timeout` is smaller.
-					final int delay = (int)Math.min(Math.pow(2, attempts) * 100, timeout - totalTime);
-					Thread.sleep(delay);
-					totalTime += delay;
-				}
-			}
-			try {
-				if (rInstance.getLastConnection() == null) {
-					attempts += 1;
-					// try one last time.
-					final RConnection connection = rInstance.createConnection();
-					if (connection != null) {
-						LOGGER.debugWithFormat("Connected to Rserve in %d attempt(s) (%dms).", attempts, totalTime);
-					}
-				}
-			} catch (RserveException e) {
-			    LOGGER.debug(String.format("Last attempt to connect to Rserve failed (waited %dms, timeout %dms)",
-			        totalTime, timeout), e);
-				throw new IOException("Could not connect to RServe (host: " + host + ", port: " + port + ").");
-			}
+            // Connect as soon as Rserve accepts connections. Attempts are cheap on the local host, so they are made in
+            // short intervals instead of sleeping longer than Rserve needs to start.
+            final Integer timeout = Integer.getInteger(PROPERTY_R_RSERVE_CONNECT_TIMEOUT, 30000);
+            final long startNanos = System.nanoTime();
+            int attempts = 0; // number of attempts
+            while (true) {
+                attempts += 1;
+                try {
+                    rInstance.createConnection();
+                    LOGGER.debugWithFormat("Connected to Rserve in %d attempt(s) (%dms).", attempts,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                    break;
+                } catch (RserveException e) {
+                    final long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    if (!p.isAlive()) {
+                        // no use in waiting for a process which failed to start
+                        throw new IOException("Rserve process terminated with exit code " + p.exitValue()
+                            + " before accepting connections (host: " + host + ", port: " + port + ").", e);
+                    }
+                    if (waited >= timeout) {
+                        LOGGER.debug(String.format("Last attempt to connect to Rserve failed (waited %dms, "
+                            + "timeout %dms)", waited, timeout), e);
+                        throw new IOException("Could not connect to RServe (host: " + host + ", port: " + port + ").");
+                    }
+                    Thread.sleep(Math.min(CONNECT_RETRY_INTERVAL, timeout - waited));
+                }
+            }
 
 			return rInstance;
 		} catch (Exception x) {
@@ -309,6 +433,11 @@ private static RInstance launchRserve(final RPreferenceProvider preferences, fin
 				rInstance.close();
 			}
 			throw new IOException("Could not start Rserve process.", x);
+		} finally {
+			// not needed anymore once Rserve accepts connections or failed to start
+			if (!configFile.delete()) {
+				configFile.deleteOnExit();
+			}
 		}
 	}
 
@@ -339,38 +468,278 @@ public static RConnectionResource createConnection() throws RserveException, IOE
      * @return an RConnectionResource which has already been acquired, never <code>null</code>
      * @throws RserveException
      * @throws IOException if Rserve could not be launched. This may be the case if R is either not found or does not
-     *             have Rserve package installed. Or if there was no open port found.
+     *             have Rserve package installed. Or if there was no open port found. Also if the maximum number of R
+     *             processes is running and none became available in time, see "knime.r.rserve.maxprocesses".
      */
     public static RConnectionResource createConnection(final RPreferenceProvider preferences) throws RserveException, IOException {
+        try {
+            return createConnection(preferences, null);
+        } catch (final CanceledExecutionException e) {
+            // without an execution monitor, only an interrupt of the waiting thread cancels
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create a new {@link RConnection}. A new R instance with given settings is created beforehand if there is no
+     * existing R instance with the same settings that can be reused.
+     * <p>
+     * If the maximum number of R processes is running, see "knime.r.rserve.maxprocesses", callers wait in the order of
+     * their calls until a process with the given settings is released or a process may be started. Idle processes with
+     * other settings are terminated to make room.
+     *
+     * The method does not check {@link RConnection#isConnected()}.
+     *
+     * @param preferences the R preference for the R instance
+     * @param exec for reporting and cancelling the wait for a free R process, may be <code>null</code>
+     * @return an RConnectionResource which has already been acquired, never <code>null</code>
+     * @throws RserveException
+     * @throws IOException if Rserve could not be launched. This may be the case if R is either not found or does not
+     *             have Rserve package installed. Or if there was no open port found. Also if no R process became
+     *             available within "knime.r.rserve.waittimeout".
+     * @throws CanceledExecutionException if canceled or interrupted while waiting for a free R process
+     * @since 5.12
+     */
+    public static RConnectionResource createConnection(final RPreferenceProvider preferences,
+        final ExecutionMonitor exec) throws RserveException, IOException, CanceledExecutionException {
         initializeShutdownHook(); // checks for re-initialization
 
+        // The lock is only held to find or register a resource, so that Rserve processes for nodes executing in
+        // parallel are launched concurrently rather than one after the other
+        RConnectionResource resource = acquireOrReserve(preferences, exec);
+        if (resource != null) {
+            // connections are closed when released => we need to
+            // reconnect
+            resource.getUnderlyingRInstance().createConnection();
+            // replace the process taken from the pool, if any
+            prewarm(preferences);
+            return resource;
+        }
+
+        // no existing resource is available. Create a new one, which nobody else can acquire in the meantime.
+        try {
+            final RInstance instance = launchRserve(preferences, "127.0.0.1", findFreePort());
+            resource = new RConnectionResource(instance, preferences);
+            if (!resource.acquireIfAvailable()) {
+                // this could also be an assertion
+                throw new IllegalStateException("Newly created RConnectionResource was not available.");
+            }
+            try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                RESOURCES.computeIfAbsent(preferences, p -> new ArrayList<>()).add(resource);
+                // processes can be launched again, e.g. after the R installation was fixed
+                POOL_FAILURES.remove(preferences);
+            }
+        } finally {
+            try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                launchingProcesses--;
+            }
+        }
+        // only fill the pool once a process was launched successfully, launching more would fail the same way
+        prewarm(preferences);
+        return resource;
+    }
+
+    /**
+     * Acquire an available resource with the given preferences or reserve the launch of a new process, waiting in line
+     * with other callers if the maximum number of processes is running.
+     *
+     * @param preferences the R preference for the R instance
+     * @param exec for reporting and cancelling the wait, may be <code>null</code>
+     * @return an acquired resource, or <code>null</code> if a new process may be launched, in which case
+     *         {@link #launchingProcesses} has been incremented
+     */
+    private static RConnectionResource acquireOrReserve(final RPreferenceProvider preferences,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+        final Object ticket = new Object();
+        final long waitStart = System.currentTimeMillis();
+        final long timeout = Long.getLong(PROPERTY_R_RSERVE_WAIT_TIMEOUT, 600000);
+        boolean waited = false;
         // synchronizing on the entire class would completely lag out KNIME for
         // some reason
         try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
-            // The resources with the given preferences
-            final List<RConnectionResource> resources = RESOURCES.computeIfAbsent(preferences, p -> new ArrayList<>());
-            // try to reuse an existing instance. Ensures there is max one R
-            // instance per parallel executed node.
-            for (final RConnectionResource resource : resources) {
-                if (resource.acquireIfAvailable()) {
-                    // connections are closed when released => we need to
-                    // reconnect
-                    resource.getUnderlyingRInstance().createConnection();
-
-                    return resource;
+            WAITING.add(ticket);
+            try {
+                while (true) {
+                    // Only the first in line may take a resource, so that callers are served in order
+                    if (WAITING.peek() == ticket) {
+                        final RConnectionResource resource = acquireAvailableResource(preferences);
+                        if ((resource != null) || reserveLaunch(preferences)) {
+                            if (waited) {
+                                LOGGER.infoWithFormat("Waited %d ms for a free R process (at most %d processes).",
+                                    System.currentTimeMillis() - waitStart, MAX_PROCESSES);
+                            }
+                            return resource;
+                        }
+                    }
+
+                    if (!waited) {
+                        LOGGER.debugWithFormat("All %d R processes are in use, waiting for a free one.",
+                            MAX_PROCESSES);
+                        waited = true;
+                    }
+                    final long waitedMillis = System.currentTimeMillis() - waitStart;
+                    if (exec != null) {
+                        exec.checkCanceled();
+                        exec.setMessage(String.format("Waiting for a free R process (%d ahead in the queue, %d s)",
+                            getPosition(ticket), TimeUnit.MILLISECONDS.toSeconds(waitedMillis)));
+                    }
+                    if ((timeout > 0) && (waitedMillis >= timeout)) {
+                        throw new IOException("No R process became available within " + timeout + " ms, all "
+                            + MAX_PROCESSES + " allowed R processes are in use. See \""
+                            + PROPERTY_R_RSERVE_MAX_PROCESSES + "\".");
+                    }
+                    // Releasing a resource does not signal, waiting callers poll to also notice cancellation
+                    PROCESS_AVAILABLE.await(WAIT_POLL_INTERVAL, TimeUnit.MILLISECONDS);
                 }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while waiting for a free R process.");
+            } finally {
+                WAITING.remove(ticket);
+                PROCESS_AVAILABLE.signalAll();
             }
-            // no existing resource is available. Create a new one.
+        }
+    }
 
-            final RInstance instance =
-                launchRserve(preferences, "127.0.0.1", findFreePort());
-            final RConnectionResource resource = new RConnectionResource(instance, preferences);
-            if (!resource.acquireIfAvailable()) {
-                // this could also be an assertion
-                throw new IllegalStateException("Newly created RConnectionResource was not available.");
+    /** @return number of callers waiting before the given one, requires the lock */
+    private static int getPosition(final Object ticket) {
+        int position = 0;
+        for (final Object waiting : WAITING) {
+            if (waiting == ticket) {
+                break;
             }
-            resources.add(resource);
-            return resource;
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Reserve the launch of a new process if the maximum number of processes is not reached, terminating an idle
+     * process with other preferences to make room if necessary. Requires the lock.
+     *
+     * @param preferences the R preference for the R instance to launch
+     * @return whether a new process may be launched, {@link #launchingProcesses} has been incremented in that case
+     */
+    private static boolean reserveLaunch(final RPreferenceProvider preferences) {
+        if (MAX_PROCESSES > 0 && getProcessCount() >= MAX_PROCESSES) {
+            final RConnectionResource idle = RESOURCES.entrySet().stream()
+                .filter(e -> !e.getKey().equals(preferences)).flatMap(e -> e.getValue().stream())
+                .filter(res -> (res.getUnderlyingRInstance() != null) && res.acquireIfAvailable()).findFirst()
+                .orElse(null);
+            if (idle == null) {
+                return false;
+            }
+            LOGGER.debug("Terminating idle R process with other settings to start a new one.");
+            idle.destroy(false);
+            RESOURCES.get(idle.m_preferences).remove(idle);
+        }
+        launchingProcesses++;
+        return true;
+    }
+
+    /** @return number of running and launching R processes, requires the lock */
+    private static int getProcessCount() {
+        return (int)getAllResources().stream().filter(res -> res.getUnderlyingRInstance() != null).count()
+            + launchingProcesses;
+    }
+
+    /**
+     * @param preferences the R preference for the R instance
+     * @return an available resource with the given preferences which has been acquired, <code>null</code> if there is
+     *         none. Requires the lock.
+     */
+    private static RConnectionResource acquireAvailableResource(final RPreferenceProvider preferences) {
+        // The resources with the given preferences
+        final List<RConnectionResource> resources = RESOURCES.computeIfAbsent(preferences, p -> new ArrayList<>());
+        // try to reuse an existing instance. Ensures there is max one R
+        // instance per parallel executed node.
+        for (final RConnectionResource resource : resources) {
+            if (resource.acquireIfAvailable()) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start the pool of idle Rserve processes for the default preferences in the background, see
+     * "knime.r.rserve.poolsize". Does nothing if no pool is configured.
+     *
+     * @since 5.12
+     */
+    public static void prewarm() {
+        if (POOL_SIZE > 0) {
+            POOL_EXECUTOR.execute(() -> fillPool(RPreferenceInitializer.getRProvider()));
+        }
+    }
+
+    /**
+     * Start idle Rserve processes with the given preferences in the background until there are as many as configured
+     * in "knime.r.rserve.poolsize". Does nothing if no pool is configured.
+     *
+     * @param preferences the R preference for the R instances
+     * @since 5.12
+     */
+    public static void prewarm(final RPreferenceProvider preferences) {
+        if (POOL_SIZE > 0) {
+            POOL_EXECUTOR.execute(() -> fillPool(preferences));
+        }
+    }
+
+    /**
+     * Launch Rserve processes until the pool for the given preferences is full, runs on the pool thread. The pool does
+     * not exceed the maximum number of processes and does not compete with waiting callers.
+     */
+    private static void fillPool(final RPreferenceProvider preferences) {
+        initializeShutdownHook(); // checks for re-initialization
+
+        while (getIdleCount(preferences, null) < POOL_SIZE) {
+            try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                if (POOL_FAILURES.contains(preferences) || !WAITING.isEmpty()
+                    || ((MAX_PROCESSES > 0) && (getProcessCount() >= MAX_PROCESSES))) {
+                    return;
+                }
+                launchingProcesses++;
+            }
+            final RInstance instance;
+            try {
+                // launched without holding the lock, like in createConnection(RPreferenceProvider)
+                instance = launchRserve(preferences, "127.0.0.1", findFreePort());
+                // closed so that the connection of the node acquiring the process is the only one to it
+                instance.getLastConnection().close();
+                try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                    RESOURCES.computeIfAbsent(preferences, p -> new ArrayList<>())
+                        .add(new RConnectionResource(instance, preferences));
+                }
+            } catch (final IOException e) {
+                LOGGER.warn("Could not start Rserve process for the pool of idle R processes, the pool is not refilled "
+                    + "until a process was started for a node.", e);
+                try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                    POOL_FAILURES.add(preferences);
+                }
+                return;
+            } finally {
+                try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+                    launchingProcesses--;
+                }
+            }
+            LOGGER.debugWithFormat("Started idle Rserve process for the pool (port: %d).", instance.m_port);
+        }
+    }
+
+    /**
+     * @param preferences preferences of the resources to count
+     * @param exclude resource not to count, may be <code>null</code>
+     * @return number of resources with the given preferences which are available and whose process is alive
+     */
+    private static int getIdleCount(final RPreferenceProvider preferences, final RConnectionResource exclude) {
+        try (LockHolder lock = new LockHolder(RESOURCES_LOCK)) {
+            final List<RConnectionResource> resources = RESOURCES.get(preferences);
+            if (resources == null) {
+                return 0;
+            }
+            return (int)resources.stream()
+                .filter(res -> (res != exclude) && res.isAvailable() && res.isRInstanceAlive()).count();
         }
     }
 
@@ -753,6 +1122,10 @@ public synchronized void release() throws RException {
                         @Override
                         public void run() {
                             try {
+                                if (getIdleCount(m_preferences, RConnectionResource.this) < POOL_SIZE) {
+                                    // keep the process as part of the pool of idle processes
+                                    return;
+                                }
                                 if (m_available.compareAndSet(true, false)) {
                                     // if not acquired in the meantime,
                                     // destroy the resource